@@ -0,0 +1,44 @@
+#!/bin/sh
+# Builds a headless runtime image of the scheduler: a jlink image with only
+# the JDK modules the headless jar needs, and an AppCDS archive of the
+# classes loaded when scheduling a small graph, so short runs start faster.
+#
+#   ./headless-image.sh [OUTPUT_DIR]
+#   OUTPUT_DIR/bin/scheduler INPUT.dot P [options]
+#
+# OUTPUT_DIR defaults to target/scheduler-image. Set JAR to use a headless
+# jar that was already built instead of running mvn package -Pheadless.
+set -e
+
+OUT=${1:-target/scheduler-image}
+if [ -z "$JAR" ]; then
+    mvn -B -q package -Pheadless -DskipTests
+    JAR=target/scheduler.jar
+fi
+
+MODULES=$(jdeps --ignore-missing-deps --print-module-deps "$JAR")
+echo "Modules: $MODULES"
+
+rm -rf "$OUT"
+jlink --add-modules "$MODULES" --strip-debug --no-header-files --no-man-pages --output "$OUT"
+mkdir -p "$OUT/lib/app"
+cp "$JAR" "$OUT/lib/app/scheduler.jar"
+
+# Record the classes a small run loads and dump them into a shared archive.
+# -XX:SharedClassListFile and -Xshare:dump work on Java 11 as well as later.
+WORK=$(mktemp -d)
+"$OUT/bin/java" -Xshare:off -XX:DumpLoadedClassList="$WORK/classes.lst" \
+    -cp "$OUT/lib/app/scheduler.jar" App examples/example.dot 2 -o "$WORK/output.dot" > /dev/null
+"$OUT/bin/java" -Xshare:dump -XX:SharedClassListFile="$WORK/classes.lst" \
+    -XX:SharedArchiveFile="$OUT/lib/app/scheduler.jsa" -cp "$OUT/lib/app/scheduler.jar" > /dev/null
+rm -rf "$WORK"
+
+cat > "$OUT/bin/scheduler" <<'LAUNCHER'
+#!/bin/sh
+HOME_DIR=$(dirname "$0")/..
+exec "$HOME_DIR/bin/java" -XX:SharedArchiveFile="$HOME_DIR/lib/app/scheduler.jsa" -Xshare:auto \
+    -cp "$HOME_DIR/lib/app/scheduler.jar" App "$@"
+LAUNCHER
+chmod +x "$OUT/bin/scheduler"
+
+echo "Built $OUT ($(du -sh "$OUT" | cut -f1)), run $OUT/bin/scheduler INPUT.dot P"
@@ -1,16 +1,70 @@
 //import javax.swing.ViewportLayout;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * The main class for the program, interacting with the other major classes
  * in order to create a final solution.
  */
 public class App {
+    private static final String[] OPTIONS = {"-p", "-v", "-o", "-c", "--format", "--metrics", "--phases", "--http", "--heuristic", "--genetic", "--beam", "--improve"};
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            try {
+                BatchScheduler.run(args);
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--convert")) {
+            try {
+                BinaryGraphFormat.run(args);
+            } catch (IllegalArgumentException | IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--generate")) {
+            try {
+                GraphGenerator.run(args);
+            } catch (IllegalArgumentException | IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--sweep")) {
+            try {
+                ProcessorSweep.run(args);
+            } catch (IllegalArgumentException | IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            try {
+                SchedulerServer.run(args);
+            } catch (IllegalArgumentException | IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
         int threadCount = 1;
         boolean doVisualise = false;
         String outputFileName = "";
+        String cacheFileName = "";
+        ScheduleWriter outputWriter = new DotScheduleWriter();
+        ProgressServer progressServer = null;
+        ListScheduler.Algorithm heuristic = null;
+        double geneticSeconds = 0;
+        int beamWidth = 0;
+        int improveWindow = 0;
 
         try {
             HashMap<Integer, String> options = checkArgs(args);
@@ -22,10 +76,49 @@ public class App {
                         break;
                     case ("2"):
                         doVisualise = true;
+                        break;
                     case ("3"):
                         outputFileName = value;
+                        break;
+                    case ("4"):
+                        cacheFileName = value;
+                        break;
+                    case ("5"):
+                        outputWriter = ScheduleWriter.forFormat(value);
+                        break;
+                    case ("6"):
+                        SearchMonitor.startTextfileExport(value, SearchMonitor.DEFAULT_EXPORT_PERIOD);
+                        break;
+                    case ("7"):
+                        // PROPERTY is a constant, so this does not load PhaseTimer before it is set
+                        System.setProperty(PhaseTimer.PROPERTY, "true");
+                        break;
+                    case ("8"):
+                        // started before the search, which only publishes snapshots if it is running
+                        try {
+                            progressServer = new ProgressServer(Integer.parseInt(value));
+                        } catch (IOException e) {
+                            System.out.println("Could not start the progress server: " + e.getMessage());
+                        }
+                        break;
+                    case ("9"):
+                        heuristic = ListScheduler.Algorithm.parse(value);
+                        break;
+                    case ("10"):
+                        geneticSeconds = Double.parseDouble(value);
+                        break;
+                    case ("11"):
+                        beamWidth = Integer.parseInt(value);
+                        break;
+                    case ("12"):
+                        improveWindow = Integer.parseInt(value);
+                        break;
                 }
             }
+            // --improve on its own improves the HEFT schedule
+            if (improveWindow > 0 && heuristic == null && geneticSeconds == 0 && beamWidth == 0) {
+                heuristic = ListScheduler.Algorithm.HEFT;
+            }
             /*
                 The number of processors.
                 */
@@ -36,25 +129,95 @@ public class App {
                 Should be passed in as a commandline argument later.
                 */
             if (outputFileName.isEmpty()) {
-                outputFileName = args[0].replaceAll("(.dot)$", "-output.dot");
+                outputFileName = args[0].replaceAll("(.dot|\\.tgb)$", "-output" + outputWriter.getExtension());
+            } else if (!outputFileName.endsWith(outputWriter.getExtension())) {
+                // -o adds .dot when there is no extension, other formats replace it
+                outputFileName = outputFileName.replaceAll("(.dot)$", "");
+                if (!outputFileName.endsWith(outputWriter.getExtension())) {
+                    outputFileName += outputWriter.getExtension();
+                }
             }
             Graph graph = new Graph(args[0], outputFileName);
+            graph.setOutputWriter(outputWriter);
+
+            // A cached solution skips the search entirely.
+            SolutionCache cache = null;
+            String cacheKey = null;
+            if (!cacheFileName.isEmpty()) {
+                cache = new SolutionCache(cacheFileName);
+                cacheKey = SolutionCache.hash(graph, processorCount);
+                List<TaskVariant> cached = cache.lookup(cacheKey, graph);
+                if (cached != null) {
+                    graph.generateOutputGraph(cached);
+                    System.out.println("\nFinish Time (cached): \n" + getFinishTime(cached) + "\n");
+                    return;
+                }
+            }
+
+            // A heuristic schedule for graphs too large to search, which is not cached as it may not be optimal.
+            if (heuristic != null) {
+                List<TaskVariant> scheduled = new ListScheduler(graph, processorCount).schedule(heuristic);
+                scheduled = improve(graph, processorCount, improveWindow, threadCount, scheduled);
+                graph.generateOutputGraph(scheduled);
+                System.out.println("\nFinish Time (" + heuristic + "): \n" + getFinishTime(scheduled) + "\n");
+                return;
+            }
+
+            // A genetic search for a fixed time, on every core unless -p is given.
+            if (geneticSeconds > 0) {
+                int islandCount = options.containsKey(1) ? threadCount : Runtime.getRuntime().availableProcessors();
+                GeneticScheduler genetic = new GeneticScheduler(graph, processorCount, islandCount,
+                        Math.round(geneticSeconds * 1000), 0);
+                List<TaskVariant> scheduled = genetic.run();
+                scheduled = improve(graph, processorCount, improveWindow, islandCount, scheduled);
+                graph.generateOutputGraph(scheduled);
+                int finishTime = getFinishTime(scheduled);
+                int lowerBound = genetic.getLowerBound();
+                System.out.println("\nFinish Time (genetic): \n" + finishTime + "\n");
+                // a bound of 0 says nothing about how far from optimal the schedule is
+                if (lowerBound > 0) {
+                    System.out.println("Lower bound: " + lowerBound + ", so at most "
+                            + String.format("%.1f", 100.0 * (finishTime - lowerBound) / lowerBound)
+                            + "% above optimal (" + genetic.getGenerations() + " generations)");
+                }
+                return;
+            }
 
             // Start searching the solutions tree.
             TreeSearch testSearch = new TreeSearch(graph, processorCount, doVisualise);
             Node node;
-            if (threadCount == 1) {
+            if (beamWidth > 0) {
+                node = testSearch.beamSearch(beamWidth, threadCount);
+            }
+            else if (threadCount == 1) {
                 node = testSearch.aStar();
             }
             else {
                 node = testSearch.aStarCentralized(threadCount);
             }
 
-            graph.generateOutputGraph(node);
-            System.out.println("\nFinish Time: \n" + node.getSchedule().getFinishTime() + "\n");
+            // beam search schedules may not be optimal, so they are not cached
+            if (cache != null && beamWidth == 0) {
+                cache.store(cacheKey, node.getSchedule().getScheduledTasks().values());
+            }
+            if (improveWindow > 0) {
+                List<TaskVariant> scheduled = improve(graph, processorCount, improveWindow, threadCount,
+                        new ArrayList<>(node.getSchedule().getScheduledTasks().values()));
+                graph.generateOutputGraph(scheduled);
+                System.out.println("\nFinish Time: \n" + getFinishTime(scheduled) + "\n");
+            } else {
+                graph.generateOutputGraph(node);
+                System.out.println("\nFinish Time: \n" + node.getSchedule().getFinishTime() + "\n");
+            }
+            PhaseTimer.printReport();
 
         } catch (IllegalArgumentException e) {
             e.printStackTrace();
+        } finally {
+            // every way out, a cached schedule included, sends the clients the final state
+            if (progressServer != null) {
+                progressServer.stop();
+            }
         }
     }
 
@@ -70,12 +233,12 @@ public class App {
         if (args.length < 2) { // exactly two args for Milestone 1
             throw new IllegalArgumentException("Please enter two arguments: input dot file and processor count.");
         }
-        else if (!args[0].matches("[^.]+\\.dot$")) {
+        else if (!args[0].matches("[^.]+\\.(dot|tgb)$")) {
             throw new IllegalArgumentException("Please enter a valid dot file.");
         }
         else {
             int p = Integer.parseInt(args[1]);
-            if (p < 1 || p > 10) {
+            if (p < 1 || p > TreeSearch.MAX_PROCESSORS) {
                 throw new IllegalArgumentException("Please enter a valid number of processors.");
             }
         }
@@ -87,7 +250,7 @@ public class App {
                 switch (option) {
                     case ("-p"):
                         int threadCount = 1;
-                        if ((i == (args.length - 1)) || args[i+1].equals("-v") || args[i+1].equals("-o")) {
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
                             throw new IllegalArgumentException("Please enter desired number of cores with option -p");
                         } else {
                             try {
@@ -105,7 +268,7 @@ public class App {
                         break;
                     case ("-o"):
                         String outputFileName = "";
-                        if ((i == (args.length - 1)) || args[i+1].equals("-p") || args[i+1].equals("-v")) {
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
                             throw new IllegalArgumentException("Please enter desired OUTPUT filename with option -o");
                         } else {
                             if (!args[i+1].endsWith(".dot")) {
@@ -117,6 +280,96 @@ public class App {
                         }
                         options.put(3, outputFileName);
                         break;
+                    case ("-c"):
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
+                            throw new IllegalArgumentException("Please enter desired CACHE filename with option -c");
+                        }
+                        options.put(4, args[i+1]);
+                        i = i + 2;
+                        break;
+                    case ("--format"):
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
+                            throw new IllegalArgumentException("Please enter desired output format with option --format");
+                        }
+                        // fails on unknown formats
+                        ScheduleWriter.forFormat(args[i+1]);
+                        options.put(5, args[i+1]);
+                        i = i + 2;
+                        break;
+                    case ("--metrics"):
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
+                            throw new IllegalArgumentException("Please enter desired METRICS filename with option --metrics");
+                        }
+                        options.put(6, args[i+1]);
+                        i = i + 2;
+                        break;
+                    case ("--phases"):
+                        options.put(7, "true");
+                        i++;
+                        break;
+                    case ("--http"):
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
+                            throw new IllegalArgumentException("Please enter desired PORT with option --http");
+                        }
+                        try {
+                            Integer.parseInt(args[i+1]);
+                        } catch (NumberFormatException e) {
+                            throw new NumberFormatException("Please enter an integer for the port");
+                        }
+                        options.put(8, args[i+1]);
+                        i = i + 2;
+                        break;
+                    case ("--heuristic"):
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
+                            throw new IllegalArgumentException("Please enter heft or cpop with option --heuristic");
+                        }
+                        // fails on unknown heuristics
+                        ListScheduler.Algorithm.parse(args[i+1]);
+                        options.put(9, args[i+1]);
+                        i = i + 2;
+                        break;
+                    case ("--genetic"):
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
+                            throw new IllegalArgumentException("Please enter the SECONDS to search for with option --genetic");
+                        }
+                        try {
+                            if (Double.parseDouble(args[i+1]) <= 0) {
+                                throw new IllegalArgumentException("Please enter a positive number of seconds with option --genetic");
+                            }
+                        } catch (NumberFormatException e) {
+                            throw new NumberFormatException("Please enter a number of seconds with option --genetic");
+                        }
+                        options.put(10, args[i+1]);
+                        i = i + 2;
+                        break;
+                    case ("--beam"):
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
+                            throw new IllegalArgumentException("Please enter the beam WIDTH with option --beam");
+                        }
+                        try {
+                            if (Integer.parseInt(args[i+1]) < 1) {
+                                throw new IllegalArgumentException("Please enter a beam width of at least 1");
+                            }
+                        } catch (NumberFormatException e) {
+                            throw new NumberFormatException("Please enter an integer for the beam width");
+                        }
+                        options.put(11, args[i+1]);
+                        i = i + 2;
+                        break;
+                    case ("--improve"):
+                        if ((i == (args.length - 1)) || isOption(args[i+1])) {
+                            throw new IllegalArgumentException("Please enter the window SIZE with option --improve");
+                        }
+                        try {
+                            if (Integer.parseInt(args[i+1]) < 1) {
+                                throw new IllegalArgumentException("Please enter a window size of at least 1");
+                            }
+                        } catch (NumberFormatException e) {
+                            throw new NumberFormatException("Please enter an integer for the window size");
+                        }
+                        options.put(12, args[i+1]);
+                        i = i + 2;
+                        break;
                     default:
                         i++;
                         break;
@@ -127,4 +380,41 @@ public class App {
         return options;
 
     }
+
+    /**
+     * Improves a schedule with the neighbourhood search when --improve was given.
+     * @param windowSize the window size given with --improve, or 0 to keep the schedule
+     * @return the improved schedule, or the schedule itself
+     */
+    private static List<TaskVariant> improve(Graph graph, int processorCount, int windowSize, int threadCount,
+                                             List<TaskVariant> scheduled) {
+        if (windowSize == 0) {
+            return scheduled;
+        }
+        NeighbourhoodSearch search = new NeighbourhoodSearch(graph, processorCount, windowSize, threadCount);
+        List<TaskVariant> improved = search.improve(scheduled);
+        System.out.println("Improved from " + getFinishTime(scheduled) + " to " + getFinishTime(improved) + " ("
+                + search.getImprovedWindows() + " of " + search.getSolvedWindows() + " windows improved)");
+        return improved;
+    }
+
+    /**
+     * @param scheduledTasks the processor and start time of every task
+     * @return the time the last task finishes
+     */
+    private static int getFinishTime(List<TaskVariant> scheduledTasks) {
+        int finishTime = 0;
+        for (TaskVariant state : scheduledTasks) {
+            finishTime = Math.max(finishTime, state.getFinishTime());
+        }
+        return finishTime;
+    }
+
+    /**
+     * @param arg a command line argument
+     * @return true if the argument is one of the options, rather than an option's value
+     */
+    private static boolean isOption(String arg) {
+        return Arrays.asList(OPTIONS).contains(arg);
+    }
 }
\ No newline at end of file
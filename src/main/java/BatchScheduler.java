@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules every dot file in a directory (or matching a glob) inside one JVM,
+ * so the start up and JIT warm up cost is paid once for the whole batch.
+ *
+ * Files are read lazily from the directory stream and at most twice the pool
+ * size are in flight at any time, so memory stays bounded however large the
+ * directory is.
+ */
+public class BatchScheduler {
+    private final int processorCount;
+    private final int threadCount;
+    private final SolutionCache cache;
+
+    private final AtomicInteger solvedCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+
+    /**
+     * @param processorCount the number of processors each graph is scheduled on.
+     * @param threadCount the number of graphs scheduled at the same time.
+     * @param cache the solution cache to use, or null for none.
+     */
+    public BatchScheduler(int processorCount, int threadCount, SolutionCache cache) {
+        this.processorCount = processorCount;
+        this.threadCount = threadCount;
+        this.cache = cache;
+    }
+
+    /**
+     * Entry point for "--batch DIR|GLOB P [-p N] [-c CACHE] [--metrics FILE]".
+     * @param args the command line arguments, starting with --batch.
+     */
+    public static void run(String[] args) {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Please enter a directory or glob and processor count after --batch.");
+        }
+        int processorCount = Integer.parseInt(args[2]);
+        if (processorCount < 1 || processorCount > TreeSearch.MAX_PROCESSORS) {
+            throw new IllegalArgumentException("Please enter a valid number of processors.");
+        }
+        int threadCount = 1;
+        SolutionCache cache = null;
+        for (int i = 3; i < args.length; i++) {
+            if (i == args.length - 1) {
+                throw new IllegalArgumentException("Please enter a value for option " + args[i]);
+            }
+            switch (args[i]) {
+                case ("-p"):
+                    try {
+                        threadCount = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        throw new NumberFormatException("Please enter an integer for number of cores");
+                    }
+                    break;
+                case ("-c"):
+                    cache = new SolutionCache(args[++i]);
+                    break;
+                case ("--metrics"):
+                    SearchMonitor.startTextfileExport(args[++i], SearchMonitor.DEFAULT_EXPORT_PERIOD);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown batch option " + args[i]);
+            }
+        }
+        new BatchScheduler(processorCount, threadCount, cache).scheduleAll(args[1]);
+    }
+
+    /**
+     * Schedules every matching dot file, printing one summary line per file.
+     * @param location a directory, or a path whose last part is a glob.
+     */
+    public void scheduleAll(String location) {
+        Path path = Paths.get(location);
+        Path directory;
+        String glob;
+        if (Files.isDirectory(path)) {
+            directory = path;
+            glob = "*.dot";
+        } else {
+            directory = path.getParent() == null ? Paths.get(".") : path.getParent();
+            glob = path.getFileName().toString();
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        Semaphore inFlight = new Semaphore(threadCount * 2);
+        long batchStart = System.currentTimeMillis();
+        System.out.println("file\ttime (ms)\tnodes expanded\tfinish time");
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : files) {
+                String name = file.toString();
+                if (!name.endsWith(".dot") || name.endsWith("-output.dot")) {
+                    continue;
+                }
+                inFlight.acquire();
+                pool.execute(() -> {
+                    try {
+                        scheduleFile(name);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } catch (IOException e) {
+            System.out.println("Could not read " + location + ".");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("\nScheduled " + solvedCount.get() + " graphs (" + failedCount.get() + " failed) in "
+                + (System.currentTimeMillis() - batchStart) + " ms");
+    }
+
+    /**
+     * Parses, schedules and writes the output for a single dot file.
+     * @param inputFile the dot file to schedule.
+     */
+    private void scheduleFile(String inputFile) {
+        long start = System.currentTimeMillis();
+        try {
+            Graph graph = new Graph(inputFile, inputFile.replaceAll("(.dot)$", "-output.dot"));
+            int nodesExpanded = 0;
+            int finishTime;
+
+            String cacheKey = null;
+            List<TaskVariant> cached = null;
+            if (cache != null) {
+                cacheKey = SolutionCache.hash(graph, processorCount);
+                cached = cache.lookup(cacheKey, graph);
+            }
+            if (cached != null) {
+                graph.generateOutputGraph(cached);
+                finishTime = 0;
+                for (TaskVariant state : cached) {
+                    finishTime = Math.max(finishTime, state.getFinishTime());
+                }
+            } else {
+                TreeSearch search = new TreeSearch(graph, processorCount, false);
+                Node node = search.aStar();
+                nodesExpanded = search.getExpandedNodesCount();
+                if (cache != null) {
+                    cache.store(cacheKey, node.getSchedule().getScheduledTasks().values());
+                }
+                graph.generateOutputGraph(node);
+                finishTime = node.getSchedule().getFinishTime();
+            }
+            solvedCount.incrementAndGet();
+            System.out.println(inputFile + "\t" + (System.currentTimeMillis() - start) + "\t"
+                    + nodesExpanded + "\t" + finishTime);
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            System.out.println(inputFile + "\tfailed: " + e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * A compact binary task graph format, written once from a dot file and
+ * loaded many times with a single memory map and no parsing.
+ *
+ * All values are big-endian ints, laid out as:
+ *   header:   magic "TGRF", version, task count n, edge count m, string table size s
+ *   weights:  n task weights
+ *   edges:    n + 1 offsets into the edge arrays (children of task i are
+ *             offsets[i] until offsets[i + 1]), m child indices, m communication costs
+ *   ids:      n + 1 offsets into the string table, then s bytes of UTF-8 ids
+ */
+public class BinaryGraphFormat {
+    public static final String EXTENSION = ".tgb";
+    public static final int MAGIC = 0x54475246;
+    public static final int VERSION = 1;
+    private static final int HEADER_INTS = 5;
+
+    /**
+     * Entry point for "--convert INPUT.dot OUTPUT.tgb".
+     * @param args the command line arguments, starting with --convert.
+     */
+    public static void run(String[] args) throws IOException {
+        if (args.length != 3 || !args[1].endsWith(".dot") || !args[2].endsWith(EXTENSION)) {
+            throw new IllegalArgumentException("Please enter an input dot file and an output " + EXTENSION
+                    + " file after --convert.");
+        }
+        Graph graph = new Graph(args[1], args[2]);
+        write(graph, args[2]);
+        System.out.println("Converted " + graph.getTaskCount() + " tasks to " + args[2]);
+    }
+
+    /**
+     * Writes a graph in the binary format. Tasks are numbered in id order.
+     * @param graph the graph to write.
+     * @param outputFile the file to write to.
+     */
+    public static void write(Graph graph, String outputFile) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>(graph.getTasks());
+        tasks.sort(Comparator.comparing(Task::getId));
+        IdentityHashMap<Task, Integer> index = new IdentityHashMap<>();
+        int edgeCount = 0;
+        byte[][] ids = new byte[tasks.size()][];
+        int stringBytes = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            index.put(tasks.get(i), i);
+            edgeCount += tasks.get(i).getChildren().size();
+            ids[i] = tasks.get(i).getId().getBytes(StandardCharsets.UTF_8);
+            stringBytes += ids[i].length;
+        }
+
+        int n = tasks.size();
+        int size = 4 * (HEADER_INTS + n + (n + 1) + 2 * edgeCount + (n + 1)) + stringBytes;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(edgeCount).putInt(stringBytes);
+        for (Task task : tasks) {
+            buffer.putInt(task.getWeight());
+        }
+        int offset = 0;
+        for (Task task : tasks) {
+            buffer.putInt(offset);
+            offset += task.getChildren().size();
+        }
+        buffer.putInt(offset);
+        for (Task task : tasks) {
+            for (Edge edge : task.getChildren()) {
+                buffer.putInt(index.get(edge.getChild()));
+            }
+        }
+        for (Task task : tasks) {
+            for (Edge edge : task.getChildren()) {
+                buffer.putInt(edge.getCommunicationTime());
+            }
+        }
+        offset = 0;
+        for (byte[] id : ids) {
+            buffer.putInt(offset);
+            offset += id.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] id : ids) {
+            buffer.put(id);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Loads a graph written by write, mapping the file in one call. Every
+     * count, offset and index is checked before it is used, so a truncated
+     * or corrupt file fails with an IOException rather than a broken graph.
+     * @param inputFile the binary graph file.
+     * @return the tasks of the graph by id, with their edges connected.
+     */
+    public static HashMap<String, Task> read(String inputFile) throws IOException {
+        Path path = Paths.get(inputFile);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        IntBuffer ints = buffer.asIntBuffer();
+        if (ints.limit() < HEADER_INTS || ints.get(0) != MAGIC || ints.get(1) != VERSION) {
+            throw new IOException(inputFile + " is not a version " + VERSION + " binary graph.");
+        }
+        int n = ints.get(2);
+        int edgeCount = ints.get(3);
+        int stringBytes = ints.get(4);
+        if (n < 0 || edgeCount < 0 || stringBytes < 0) {
+            throw corrupt(inputFile, "a negative count");
+        }
+        // in longs, as corrupt counts may overflow an int
+        long expectedSize = 4L * (HEADER_INTS + (long) n + (n + 1L) + 2L * edgeCount + (n + 1L)) + stringBytes;
+        if (buffer.limit() != expectedSize) {
+            throw new IOException(inputFile + " is truncated.");
+        }
+        int weights = HEADER_INTS;
+        int edgeOffsets = weights + n;
+        int children = edgeOffsets + n + 1;
+        int costs = children + edgeCount;
+        int idOffsets = costs + edgeCount;
+        int strings = 4 * (idOffsets + n + 1);
+        checkOffsets(ints, edgeOffsets, n, edgeCount, inputFile, "edge");
+        checkOffsets(ints, idOffsets, n, stringBytes, inputFile, "id");
+        for (int i = 0; i < n; i++) {
+            if (ints.get(weights + i) < 0) {
+                throw corrupt(inputFile, "a negative task weight");
+            }
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            int child = ints.get(children + e);
+            if (child < 0 || child >= n) {
+                throw corrupt(inputFile, "an edge to task " + child + " of " + n);
+            }
+            if (ints.get(costs + e) < 0) {
+                throw corrupt(inputFile, "a negative communication cost");
+            }
+        }
+
+        byte[] stringTable = new byte[stringBytes];
+        buffer.position(strings);
+        buffer.get(stringTable);
+
+        Task[] tasks = new Task[n];
+        HashMap<String, Task> byId = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            int start = ints.get(idOffsets + i);
+            String id = new String(stringTable, start, ints.get(idOffsets + i + 1) - start, StandardCharsets.UTF_8);
+            tasks[i] = new Task(ints.get(weights + i), id);
+            if (byId.put(id, tasks[i]) != null) {
+                throw corrupt(inputFile, "task " + id + " twice");
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int e = ints.get(edgeOffsets + i); e < ints.get(edgeOffsets + i + 1); e++) {
+                Task child = tasks[ints.get(children + e)];
+                Edge edge = new Edge(child, tasks[i], ints.get(costs + e));
+                tasks[i].addChild(edge);
+                child.addParent(edge);
+            }
+        }
+        return byId;
+    }
+
+    /**
+     * Checks that n + 1 offsets start at 0, never decrease and end at the
+     * size of the array they index.
+     */
+    private static void checkOffsets(IntBuffer ints, int from, int n, int size, String inputFile, String name)
+            throws IOException {
+        if (ints.get(from) != 0 || ints.get(from + n) != size) {
+            throw corrupt(inputFile, name + " offsets that do not cover the " + name + " table");
+        }
+        for (int i = 0; i < n; i++) {
+            if (ints.get(from + i + 1) < ints.get(from + i)) {
+                throw corrupt(inputFile, "decreasing " + name + " offsets");
+            }
+        }
+    }
+
+    private static IOException corrupt(String inputFile, String problem) {
+        return new IOException(inputFile + " is corrupt: it has " + problem + ".");
+    }
+}
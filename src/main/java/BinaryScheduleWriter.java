@@ -0,0 +1,48 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes the schedule in a compact big-endian binary layout:
+ *
+ *   int magic ("SCHD"), int version, int finish time, int task count,
+ *   then per scheduled task in id order:
+ *   modified UTF-8 id, int weight, int start time, byte processor.
+ */
+public class BinaryScheduleWriter implements ScheduleWriter {
+    public static final int MAGIC = 0x53434844;
+    public static final int VERSION = 1;
+
+    @Override
+    public String getExtension() {
+        return ".bin";
+    }
+
+    @Override
+    public void write(String graphName, Collection<Task> tasks, Collection<Edge> edges,
+                      Map<Task, TaskVariant> schedule, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        int finishTime = 0;
+        for (TaskVariant state : schedule.values()) {
+            finishTime = Math.max(finishTime, state.getFinishTime());
+        }
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(finishTime);
+        data.writeInt(schedule.size());
+        for (Task task : DotScheduleWriter.sortedTasks(tasks)) {
+            TaskVariant state = schedule.get(task);
+            if (state == null) {
+                continue;
+            }
+            data.writeUTF(task.getId());
+            data.writeInt(task.getWeight());
+            data.writeInt(state.getStartTime());
+            data.writeByte(state.getProcessor());
+        }
+        data.flush();
+    }
+}
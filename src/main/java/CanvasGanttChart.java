@@ -0,0 +1,300 @@
+import java.util.Arrays;
+
+import javafx.geometry.Point2D;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * A Gantt chart for large schedules that draws every block onto a single
+ * Canvas, instead of creating a node per task like GanttChart does. The
+ * scene graph stays the same size however many tasks there are.
+ *
+ * The blocks of each processor are kept sorted by start time in primitive
+ * arrays. A redraw skips blocks that fall inside a pixel column already
+ * painted, so it draws at most one block per column of each row, and the
+ * block under the mouse is found with a binary search on its row.
+ */
+public class CanvasGanttChart extends Region {
+    private static final double LEFT_MARGIN = 90;
+    private static final double RIGHT_MARGIN = 20;
+    private static final double TOP_MARGIN = 40;
+    private static final double BOTTOM_MARGIN = 50;
+    private static final double BLOCK_FRACTION = 0.6;
+    private static final int TARGET_TICKS = 10;
+
+    private final Canvas canvas = new Canvas();
+    private final int processorCount;
+    private String title = "";
+
+    // for each processor, the blocks ordered by start time
+    private int[][] starts;
+    private int[][] ends;
+    private Task[][] tasks;
+    private int[] blockCounts;
+    private int maxTime = 1;
+
+    private int hoveredProcessor = -1;
+    private int hoveredBlock = -1;
+
+    public CanvasGanttChart(int processorCount) {
+        this.processorCount = processorCount;
+        this.starts = new int[processorCount][0];
+        this.ends = new int[processorCount][0];
+        this.tasks = new Task[processorCount][0];
+        this.blockCounts = new int[processorCount];
+        getChildren().add(canvas);
+
+        canvas.setOnMouseMoved(this::updateHover);
+        canvas.setOnMouseExited(e -> setHovered(-1, -1));
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+        draw();
+    }
+
+    /**
+     * Replaces the displayed schedule and redraws the chart.
+     * @param scheduledTasks the tasks of the schedule, in any order.
+     * @param finishTime the finish time of the schedule.
+     */
+    public void setSchedule(TaskVariant[] scheduledTasks, int finishTime) {
+        Arrays.fill(blockCounts, 0);
+        for (TaskVariant state : scheduledTasks) {
+            blockCounts[state.getProcessor()]++;
+        }
+
+        // sort the blocks of each row by packing the start time and index into a long
+        long[][] keys = new long[processorCount][];
+        int[] filled = new int[processorCount];
+        for (int p = 0; p < processorCount; p++) {
+            keys[p] = new long[blockCounts[p]];
+        }
+        for (int i = 0; i < scheduledTasks.length; i++) {
+            int p = scheduledTasks[i].getProcessor();
+            keys[p][filled[p]++] = ((long) scheduledTasks[i].getStartTime() << 32) | i;
+        }
+
+        maxTime = Math.max(1, finishTime);
+        for (int p = 0; p < processorCount; p++) {
+            int count = blockCounts[p];
+            if (starts[p].length < count) {
+                starts[p] = new int[count];
+                ends[p] = new int[count];
+                tasks[p] = new Task[count];
+            }
+            Arrays.fill(tasks[p], count, tasks[p].length, null);
+            Arrays.sort(keys[p]);
+            for (int b = 0; b < count; b++) {
+                TaskVariant state = scheduledTasks[(int) keys[p][b]];
+                starts[p][b] = state.getStartTime();
+                ends[p][b] = state.getStartTime() + state.getTask().getWeight();
+                tasks[p][b] = state.getTask();
+                maxTime = Math.max(maxTime, ends[p][b]);
+            }
+        }
+
+        hoveredProcessor = -1;
+        hoveredBlock = -1;
+        draw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        if (canvas.getWidth() != getWidth() || canvas.getHeight() != getHeight()) {
+            canvas.setWidth(getWidth());
+            canvas.setHeight(getHeight());
+            draw();
+        }
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return 800;
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return 600;
+    }
+
+    private double plotWidth() {
+        return Math.max(1, canvas.getWidth() - LEFT_MARGIN - RIGHT_MARGIN);
+    }
+
+    private double rowHeight() {
+        return Math.max(1, canvas.getHeight() - TOP_MARGIN - BOTTOM_MARGIN) / processorCount;
+    }
+
+    /**
+     * @return the time at the right end of the axis, a whole number of ticks
+     */
+    private double axisEnd() {
+        double step = tickStep();
+        return Math.ceil(maxTime / step) * step;
+    }
+
+    /**
+     * @return a step of 1, 2 or 5 times a power of ten giving about TARGET_TICKS ticks
+     */
+    private double tickStep() {
+        double raw = (double) maxTime / TARGET_TICKS;
+        double magnitude = Math.pow(10, Math.floor(Math.log10(Math.max(1, raw))));
+        double step = magnitude;
+        if (raw > 5 * magnitude) {
+            step = 10 * magnitude;
+        } else if (raw > 2 * magnitude) {
+            step = 5 * magnitude;
+        } else if (raw > magnitude) {
+            step = 2 * magnitude;
+        }
+        return Math.max(1, step);
+    }
+
+    private void draw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.clearRect(0, 0, width, height);
+        if (width <= LEFT_MARGIN + RIGHT_MARGIN || height <= TOP_MARGIN + BOTTOM_MARGIN) {
+            return;
+        }
+
+        double plotWidth = plotWidth();
+        double rowHeight = rowHeight();
+        double scale = plotWidth / axisEnd();
+        double blockHeight = rowHeight * BLOCK_FRACTION;
+
+        // title, axes and tick labels
+        gc.setFill(Color.BLACK);
+        gc.setFont(Font.font(18));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.fillText(title, LEFT_MARGIN + plotWidth / 2, TOP_MARGIN / 2);
+
+        gc.setFont(Font.font(12));
+        gc.setStroke(Color.LIGHTGRAY);
+        gc.setLineWidth(1);
+        double step = tickStep();
+        for (double time = 0; time <= axisEnd(); time += step) {
+            double x = Math.floor(LEFT_MARGIN + time * scale) + 0.5;
+            gc.strokeLine(x, TOP_MARGIN, x, TOP_MARGIN + rowHeight * processorCount);
+            gc.setFill(Color.GRAY);
+            gc.fillText(Long.toString((long) time), x, TOP_MARGIN + rowHeight * processorCount + 12);
+        }
+        gc.fillText("Allocated Time", LEFT_MARGIN + plotWidth / 2, height - BOTTOM_MARGIN / 3);
+
+        gc.setTextAlign(TextAlignment.RIGHT);
+        for (int p = 0; p < processorCount; p++) {
+            gc.fillText("processor " + p, LEFT_MARGIN - 10, TOP_MARGIN + rowHeight * (p + 0.5));
+        }
+
+        // blocks, at most one per pixel column of a row
+        for (int p = 0; p < processorCount; p++) {
+            double y = TOP_MARGIN + rowHeight * p + (rowHeight - blockHeight) / 2;
+            double paintedTo = Double.NEGATIVE_INFINITY;
+            for (int b = 0; b < blockCounts[p]; b++) {
+                double x0 = LEFT_MARGIN + starts[p][b] * scale;
+                double x1 = LEFT_MARGIN + ends[p][b] * scale;
+                if (Math.floor(x1) <= paintedTo) {
+                    continue;
+                }
+                gc.setFill(blockColor(tasks[p][b].getWeight(), starts[p][b]));
+                gc.fillRect(x0, y, Math.max(1, x1 - x0), blockHeight);
+                paintedTo = Math.floor(x1);
+            }
+        }
+
+        if (hoveredBlock >= 0) {
+            double x0 = LEFT_MARGIN + starts[hoveredProcessor][hoveredBlock] * scale;
+            double x1 = LEFT_MARGIN + ends[hoveredProcessor][hoveredBlock] * scale;
+            double y = TOP_MARGIN + rowHeight * hoveredProcessor + (rowHeight - blockHeight) / 2;
+            gc.setFill(Color.rgb(0, 0, 0, 0.4));
+            gc.fillRect(x0, y, Math.max(1, x1 - x0), blockHeight);
+        }
+    }
+
+    /**
+     * The same colours as the blocks of GanttChart, which depend on the start
+     * time so that adjacent blocks differ.
+     */
+    private static Color blockColor(int weight, int startTime) {
+        return Color.rgb(weight % 255, (startTime * 20) % 255, startTime % 255, 0.7);
+    }
+
+    /**
+     * Finds the block under the mouse: the row from the y coordinate, then
+     * the last block of that row starting at or before the time under the
+     * mouse, by binary search.
+     */
+    private void updateHover(MouseEvent event) {
+        double rowHeight = rowHeight();
+        double blockHeight = rowHeight * BLOCK_FRACTION;
+        int processor = (int) Math.floor((event.getY() - TOP_MARGIN) / rowHeight);
+        if (processor < 0 || processor >= processorCount || event.getX() < LEFT_MARGIN) {
+            setHovered(-1, -1);
+            return;
+        }
+        double offset = event.getY() - TOP_MARGIN - rowHeight * processor - (rowHeight - blockHeight) / 2;
+        if (offset < 0 || offset > blockHeight) {
+            setHovered(-1, -1);
+            return;
+        }
+
+        double time = (event.getX() - LEFT_MARGIN) * axisEnd() / plotWidth();
+        int index = Arrays.binarySearch(starts[processor], 0, blockCounts[processor], (int) Math.floor(time));
+        if (index < 0) {
+            index = -index - 2;
+        }
+        if (index >= 0 && time < ends[processor][index]) {
+            setHovered(processor, index);
+        } else {
+            setHovered(-1, -1);
+        }
+    }
+
+    private void setHovered(int processor, int block) {
+        if (processor == hoveredProcessor && block == hoveredBlock) {
+            return;
+        }
+        Visualiser visualiser = Visualiser.getVisualiser();
+        boolean wasHovering = hoveredBlock >= 0;
+        hoveredProcessor = processor;
+        hoveredBlock = block;
+        draw();
+
+        if (block < 0) {
+            if (wasHovering) {
+                visualiser.getFadeOut().playFromStart();
+                visualiser.hideTaskInfo();
+            }
+            return;
+        }
+
+        // place the task info above the centre of the block, or below it in the top half
+        double scale = plotWidth() / axisEnd();
+        double rowHeight = rowHeight();
+        double x = LEFT_MARGIN + (starts[processor][block] + ends[processor][block]) / 2.0 * scale;
+        double y = TOP_MARGIN + rowHeight * processor + (rowHeight - rowHeight * BLOCK_FRACTION) / 2;
+        double infoHeight = visualiser.getTaskInfoPane().getHeight();
+        if (processor < processorCount / 2) {
+            y += rowHeight * BLOCK_FRACTION + 10;
+        } else {
+            y -= infoHeight + 10;
+        }
+        Point2D position = canvas.localToScene(x, y);
+        visualiser.moveTaskInfo(position.getX(), position.getY());
+
+        visualiser.setTaskLabelInfo(tasks[processor][block], starts[processor][block]);
+        if (!wasHovering) {
+            visualiser.getFadeIn().playFromStart();
+        }
+        visualiser.showTaskInfo();
+    }
+}
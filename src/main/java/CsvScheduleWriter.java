@@ -0,0 +1,53 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes the schedule as CSV, one row per scheduled task.
+ */
+public class CsvScheduleWriter implements ScheduleWriter {
+
+    @Override
+    public String getExtension() {
+        return ".csv";
+    }
+
+    @Override
+    public void write(String graphName, Collection<Task> tasks, Collection<Edge> edges,
+                      Map<Task, TaskVariant> schedule, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("task,weight,start,finish,processor\n");
+        for (Task task : DotScheduleWriter.sortedTasks(tasks)) {
+            TaskVariant state = schedule.get(task);
+            if (state == null) {
+                continue;
+            }
+            writeField(task.getId(), writer);
+            writer.write(',');
+            writer.write(Integer.toString(task.getWeight()));
+            writer.write(',');
+            writer.write(Integer.toString(state.getStartTime()));
+            writer.write(',');
+            writer.write(Integer.toString(state.getFinishTime()));
+            writer.write(',');
+            writer.write(Integer.toString(state.getProcessor()));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static void writeField(String value, Writer writer) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+        } else {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
@@ -1,62 +1,537 @@
-
-import com.paypal.digraph.parser.GraphEdge;
-import com.paypal.digraph.parser.GraphNode;
-import com.paypal.digraph.parser.GraphParser;
-
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single pass parser for the subset of DOT used by task graphs:
+ * node and edge statements with a Weight attribute and any number of other
+ * attributes, which are ignored for nodes and kept for edges. Subgraphs are
+ * flattened into the graph. Quoted and html ids keep their original text,
+ * quotes included, so they are written back as they were read.
+ *
+ * The input is lexed straight from a byte buffer. Ids are resolved to an
+ * index as they are read and weights are parsed without creating strings,
+ * so the only objects built are the tasks and edges of the graph.
+ */
+public class DotParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] WEIGHT = "Weight".getBytes(StandardCharsets.US_ASCII);
+
+    // token types
+    private static final int EOF = -1;
+    private static final int ID = 0;
+    private static final int QUOTED = 1;
+    private static final int SYMBOL = 2;
+    private static final int EDGE_OP = 3;
 
-public class DotParser extends GraphParser{
     private final String outputFile;
 
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private int line = 1;
+
+    private int tokenType;
+    private byte[] token = new byte[64];
+    private int tokenLength;
+    private int peeked = -2;
+
+    // nodes, indexed in the order they are first seen
+    private final HashMap<String, Integer> nodeIndex = new HashMap<>();
+    private final ArrayList<String> nodeIds = new ArrayList<>();
+    private int[] nodeWeights = new int[64];
+
+    // edges as parallel arrays of node indices and weights
+    private final HashMap<Long, Integer> edgeIndex = new HashMap<>();
+    private int edgeCount = 0;
+    private int[] edgeFrom = new int[64];
+    private int[] edgeTo = new int[64];
+    private int[] edgeWeights = new int[64];
+    private final HashMap<Integer, Map<String, Object>> edgeAttributes = new HashMap<>();
+
+    private HashMap<String, Task> tasks;
+    private Edge[] edges;
+    private HashMap<Task, TaskVariant> schedule = new HashMap<>();
+
+    /**
+     * Parses a dot description. The stream is read to the end and closed.
+     * @param is the stream containing the dot description.
+     * @param outputFile the name used for the output graph.
+     */
     public DotParser(InputStream is, String outputFile) {
-        super(is);
+        this.in = is;
         this.outputFile = outputFile;
+        try {
+            parseGraph();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                is.close();
+            } catch (IOException ignored) {
+            }
+        }
+        buildGraph();
     }
 
     /**
-     * return the nodes as a collection
-     * @return Collection of GraphNodes
+     * @return the tasks of the graph, by id
      */
-    public Collection<GraphNode> parseNodes() {
-        return getNodes().values();
+    public HashMap<String, Task> getTasks() {
+        return tasks;
     }
+
     /**
-     * return the edges as a collection
-     * @return Collection of GraphNodes
+     * @return the edges of the graph
      */
-    public Collection<GraphEdge> parseEdges() {
-        return getEdges().values();
+    public Collection<Edge> getEdges() {
+        return Arrays.asList(edges);
+    }
+
+    /**
+     * Sets the processor and start time written for each task.
+     * @param scheduledTasks the scheduled tasks.
+     */
+    public void setSchedule(Collection<TaskVariant> scheduledTasks) {
+        schedule = new HashMap<>();
+        for (TaskVariant state : scheduledTasks) {
+            schedule.put(state.getTask(), state);
+        }
     }
 
     /**
      * Generate the output file.
      */
     public void writeScheduleToDot() {
-        try {
-            FileWriter writer = new FileWriter(outputFile);
-            writer.write("digraph  \""+ outputFile.replace(".dot","") +"\" {\n");
+        try (OutputStream out = new FileOutputStream(outputFile)) {
+            new DotScheduleWriter().write(outputFile.replace(".dot",""), tasks.values(), getEdges(), schedule, out);
+        } catch (IOException e) {
+            System.out.println("Output error occurred.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates the tasks and edges once every statement has been read,
+     * so edges may refer to nodes declared later in the file.
+     */
+    private void buildGraph() {
+        Task[] byIndex = new Task[nodeIds.size()];
+        tasks = new HashMap<>(nodeIds.size() * 2);
+        for (int i = 0; i < byIndex.length; i++) {
+            if (nodeWeights[i] < 0) {
+                throw new IllegalArgumentException("Task " + nodeIds.get(i) + " has no Weight.");
+            }
+            byIndex[i] = new Task(nodeWeights[i], nodeIds.get(i));
+            tasks.put(nodeIds.get(i), byIndex[i]);
+        }
+        edges = new Edge[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            if (edgeWeights[i] < 0) {
+                throw new IllegalArgumentException("Edge " + nodeIds.get(edgeFrom[i]) + " -> "
+                        + nodeIds.get(edgeTo[i]) + " has no Weight.");
+            }
+            Task parent = byIndex[edgeFrom[i]];
+            Task child = byIndex[edgeTo[i]];
+            edges[i] = new Edge(child, parent, edgeWeights[i]);
+            edges[i].setAttributes(edgeAttributes.get(i));
+            parent.addChild(edges[i]);
+            child.addParent(edges[i]);
+        }
+        // the id lookups are only needed while parsing
+        nodeIndex.clear();
+        edgeIndex.clear();
+        edgeAttributes.clear();
+    }
+
+    private void parseGraph() throws IOException {
+        next();
+        if (tokenType == ID && tokenIs("strict")) {
+            next();
+        }
+        if (tokenType != ID || !(tokenIs("digraph") || tokenIs("graph"))) {
+            throw error("expected digraph");
+        }
+        next();
+        if (tokenType == ID || tokenType == QUOTED) {
+            next();
+        }
+        expectSymbol('{');
+        next();
+        while (!(tokenType == SYMBOL && token[0] == '}')) {
+            if (tokenType == EOF) {
+                throw error("expected }");
+            }
+            parseStatement();
+        }
+    }
+
+    /**
+     * Parses one statement, leaving the token after it current.
+     */
+    private void parseStatement() throws IOException {
+        if (tokenType == SYMBOL && token[0] == ';') {
+            next();
+            return;
+        }
+        if (tokenType != ID && tokenType != QUOTED && !(tokenType == SYMBOL && token[0] == '{')) {
+            throw error("expected a statement");
+        }
+        if (tokenType == ID && (tokenIs("graph") || tokenIs("node") || tokenIs("edge"))) {
+            // default attribute statements do not affect task graphs
+            next();
+            skipAttributes();
+            return;
+        }
+        if (tokenType == ID && tokenIs("subgraph")) {
+            next();
+            if (tokenType == ID || tokenType == QUOTED) {
+                next();
+            }
+            if (!(tokenType == SYMBOL && token[0] == '{')) {
+                throw error("expected {");
+            }
+        }
+        if (tokenType == SYMBOL && token[0] == '{') {
+            parseSubgraph();
+            return;
+        }
+        String id = tokenString();
+        next();
+        if (tokenType == SYMBOL && token[0] == '=') {
+            // graph attribute such as label=...
+            next();
+            next();
+            return;
+        }
+        if (tokenType == EDGE_OP) {
+            parseEdges(nodeIndex(id));
+            return;
+        }
+        int node = nodeIndex(id);
+        int weight = parseAttributes(null);
+        if (weight >= 0) {
+            nodeWeights[node] = weight;
+        }
+    }
+
+    /**
+     * Parses the statements of a subgraph as if they were in the graph
+     * itself, as clusters do not affect the schedule.
+     */
+    private void parseSubgraph() throws IOException {
+        next();
+        while (!(tokenType == SYMBOL && token[0] == '}')) {
+            if (tokenType == EOF) {
+                throw error("expected }");
+            }
+            parseStatement();
+        }
+        next();
+        if (tokenType == SYMBOL && token[0] == ';') {
+            next();
+        }
+    }
+
+    /**
+     * Parses a chain of edges such as "a -> b -> c [Weight=1]".
+     */
+    private void parseEdges(int first) throws IOException {
+        int[] chain = {first, 0, 0, 0};
+        int length = 1;
+        while (tokenType == EDGE_OP) {
+            next();
+            if (tokenType != ID && tokenType != QUOTED) {
+                throw error("expected a node id");
+            }
+            if (length == chain.length) {
+                chain = Arrays.copyOf(chain, length * 2);
+            }
+            chain[length++] = nodeIndex(tokenString());
+            next();
+        }
+        HashMap<String, Object> extra = new HashMap<>();
+        int weight = parseAttributes(extra);
+        for (int i = 0; i + 1 < length; i++) {
+            addEdge(chain[i], chain[i + 1], weight, extra);
+        }
+    }
+
+    private void addEdge(int from, int to, int weight, HashMap<String, Object> extra) {
+        long key = ((long) from << 32) | to;
+        Integer existing = edgeIndex.get(key);
+        int edge;
+        if (existing != null) {
+            edge = existing;
+        } else {
+            edge = edgeCount++;
+            if (edge == edgeFrom.length) {
+                edgeFrom = Arrays.copyOf(edgeFrom, edge * 2);
+                edgeTo = Arrays.copyOf(edgeTo, edge * 2);
+                edgeWeights = Arrays.copyOf(edgeWeights, edge * 2);
+            }
+            edgeFrom[edge] = from;
+            edgeTo[edge] = to;
+            edgeWeights[edge] = -1;
+            edgeIndex.put(key, edge);
+        }
+        if (weight >= 0) {
+            edgeWeights[edge] = weight;
+        }
+        if (!extra.isEmpty() || edgeAttributes.containsKey(edge)) {
+            Map<String, Object> attributes = edgeAttributes.computeIfAbsent(edge, e -> new HashMap<>());
+            attributes.putAll(extra);
+            attributes.put("Weight", Integer.toString(edgeWeights[edge]));
+        }
+    }
 
-            for (GraphNode graphNode : parseNodes()) {
-                //String attr = graphNode.getAttributes().toString().replace("{", "[").replace("}", "]");
-                String weight = "[Weight=" + graphNode.getAttribute("Weight").toString();
-                if (graphNode.getAttribute("Start") != null) {
-                    String start = ",Start=" + graphNode.getAttribute("Start").toString();
-                    String processor = ",Processor=" + graphNode.getAttribute("Processor").toString();
-                    String attr = weight + start + processor + "]";
-                    writer.write("\t" + graphNode.getId() + "\t" + attr + ";\n");
+    /**
+     * Parses any attribute lists following a node or edge.
+     * @param extra where attributes other than Weight are kept, or null to ignore them.
+     * @return the Weight attribute, or -1 if there was none.
+     */
+    private int parseAttributes(Map<String, Object> extra) throws IOException {
+        int weight = -1;
+        while (tokenType == SYMBOL && token[0] == '[') {
+            next();
+            while (!(tokenType == SYMBOL && token[0] == ']')) {
+                if (tokenType != ID && tokenType != QUOTED) {
+                    throw error("expected an attribute name");
+                }
+                boolean isWeight = tokenType == ID && tokenIs(WEIGHT);
+                String name = isWeight || extra == null ? null : tokenString();
+                next();
+                expectSymbol('=');
+                next();
+                if (tokenType != ID && tokenType != QUOTED) {
+                    throw error("expected an attribute value");
+                }
+                if (isWeight) {
+                    weight = tokenInt();
+                } else if (extra != null) {
+                    extra.put(name, tokenString());
+                }
+                next();
+                if (tokenType == SYMBOL && (token[0] == ',' || token[0] == ';')) {
+                    next();
                 }
             }
+            next();
+        }
+        if (tokenType == SYMBOL && token[0] == ';') {
+            next();
+        }
+        return weight;
+    }
 
-            for (GraphEdge edge : parseEdges()) {
-                String attr = edge.getAttributes().toString().replace("{", "[").replace("}", "]");
-                writer.write("\t" + edge.getNode1().getId() + " -> " + edge.getNode2().getId() + "\t" + attr + ";\n");
+    private void skipAttributes() throws IOException {
+        parseAttributes(null);
+    }
+
+    private int nodeIndex(String id) {
+        Integer index = nodeIndex.get(id);
+        if (index == null) {
+            index = nodeIds.size();
+            nodeIndex.put(id, index);
+            nodeIds.add(id);
+            if (index == nodeWeights.length) {
+                nodeWeights = Arrays.copyOf(nodeWeights, index * 2);
             }
-            writer.write("}");
-            writer.close();
-        } catch (IOException e) {
-            System.out.println("Output error occurred.");
-            e.printStackTrace();
+            nodeWeights[index] = -1;
+        }
+        return index;
+    }
+
+    private void expectSymbol(char symbol) throws IOException {
+        if (tokenType != SYMBOL || token[0] != symbol) {
+            throw error("expected " + symbol);
+        }
+    }
+
+    private boolean tokenIs(String keyword) {
+        return tokenIs(keyword.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private boolean tokenIs(byte[] keyword) {
+        if (tokenLength != keyword.length) {
+            return false;
+        }
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String tokenString() {
+        return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+    }
+
+    private int tokenInt() {
+        int value = 0;
+        // a quoted number such as "5" is read without its quotes
+        int first = tokenType == QUOTED && token[0] == '"' ? 1 : 0;
+        int end = tokenLength - first;
+        if (end <= first) {
+            throw error("expected a number");
+        }
+        for (int i = first; i < end; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+                throw error("invalid Weight " + tokenString());
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Dot parse error at line " + line + ": " + message);
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int b = peeked;
+            peeked = -2;
+            return b;
+        }
+        if (position == limit) {
+            limit = in.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        int b = buffer[position++] & 0xFF;
+        if (b == '\n') {
+            line++;
+        }
+        return b;
+    }
+
+    private void unread(int b) {
+        peeked = b;
+    }
+
+    private void append(int b) {
+        if (tokenLength == token.length) {
+            token = Arrays.copyOf(token, tokenLength * 2);
+        }
+        token[tokenLength++] = (byte) b;
+    }
+
+    /**
+     * Reads the next token into the token buffer.
+     */
+    private void next() throws IOException {
+        tokenLength = 0;
+        int b = skipWhitespaceAndComments();
+        if (b == -1) {
+            tokenType = EOF;
+        } else if (b == '"') {
+            // quoted string, kept with its quotes and escapes
+            tokenType = QUOTED;
+            append(b);
+            while ((b = read()) != '"') {
+                if (b == -1) {
+                    throw error("unterminated string");
+                }
+                append(b);
+                if (b == '\\') {
+                    b = read();
+                    if (b == -1) {
+                        throw error("unterminated string");
+                    }
+                    append(b);
+                }
+            }
+            append(b);
+        } else if (b == '<') {
+            // html string, kept with its brackets
+            tokenType = QUOTED;
+            int depth = 1;
+            append(b);
+            while (depth > 0) {
+                b = read();
+                if (b == -1) {
+                    throw error("unterminated html string");
+                }
+                depth += b == '<' ? 1 : b == '>' ? -1 : 0;
+                append(b);
+            }
+        } else if (b == '-') {
+            int second = read();
+            if (second == '>' || second == '-') {
+                tokenType = EDGE_OP;
+                append(b);
+                append(second);
+            } else {
+                unread(second);
+                tokenType = ID;
+                append(b);
+                readId();
+            }
+        } else if (isIdChar(b)) {
+            tokenType = ID;
+            append(b);
+            readId();
+        } else {
+            tokenType = SYMBOL;
+            append(b);
+        }
+    }
+
+    private void readId() throws IOException {
+        int b;
+        while ((b = read()) != -1 && isIdChar(b)) {
+            append(b);
+        }
+        unread(b);
+    }
+
+    private static boolean isIdChar(int b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                || b == '_' || b == '.' || b >= 0x80;
+    }
+
+    private int skipWhitespaceAndComments() throws IOException {
+        while (true) {
+            int b = read();
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                continue;
+            }
+            if (b == '#') {
+                skipLine();
+                continue;
+            }
+            if (b == '/') {
+                int second = read();
+                if (second == '/') {
+                    skipLine();
+                    continue;
+                } else if (second == '*') {
+                    int previous = 0;
+                    while ((b = read()) != -1 && !(previous == '*' && b == '/')) {
+                        previous = b;
+                    }
+                    continue;
+                }
+                unread(second);
+            }
+            return b;
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int b;
+        while ((b = read()) != -1 && b != '\n') {
         }
     }
 }
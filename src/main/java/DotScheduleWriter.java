@@ -0,0 +1,141 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Writes the schedule as a dot file, in the same layout the scheduler has
+ * always produced: scheduled nodes in id order followed by every edge in
+ * "parent-child" order.
+ */
+public class DotScheduleWriter implements ScheduleWriter {
+
+    @Override
+    public String getExtension() {
+        return ".dot";
+    }
+
+    @Override
+    public void write(String graphName, Collection<Task> tasks, Collection<Edge> edges,
+                      Map<Task, TaskVariant> schedule, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        write(graphName, tasks, edges, schedule, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the dot file to a character stream, which is left open.
+     */
+    public void write(String graphName, Collection<Task> tasks, Collection<Edge> edges,
+                      Map<Task, TaskVariant> schedule, Writer writer) throws IOException {
+        writer.write("digraph  \"");
+        writer.write(graphName);
+        writer.write("\" {\n");
+
+        for (Task task : sortedTasks(tasks)) {
+            TaskVariant state = schedule.get(task);
+            if (state != null) {
+                writer.write('\t');
+                writer.write(toDotId(task.getId()));
+                writer.write("\t[Weight=");
+                writer.write(Integer.toString(task.getWeight()));
+                writer.write(",Start=");
+                writer.write(Integer.toString(state.getStartTime()));
+                writer.write(",Processor=");
+                writer.write(Integer.toString(state.getProcessor()));
+                writer.write("];\n");
+            }
+        }
+
+        for (Edge edge : sortedEdges(edges)) {
+            writer.write('\t');
+            writer.write(toDotId(edge.getParent().getId()));
+            writer.write(" -> ");
+            writer.write(toDotId(edge.getChild().getId()));
+            writer.write('\t');
+            if (edge.getAttributes() == null) {
+                writer.write("[Weight=");
+                writer.write(Integer.toString(edge.getCommunicationTime()));
+                writer.write(']');
+            } else {
+                writer.write(edge.getAttributes().toString().replace("{", "[").replace("}", "]"));
+            }
+            writer.write(";\n");
+        }
+        writer.write("}");
+    }
+
+    /**
+     * Ids read from a dot file are written as they were, quotes included.
+     * Any other id that DotParser would not read back as one plain id, such
+     * as one containing a space, is quoted.
+     * @return the id as it is written in the dot file
+     */
+    static String toDotId(String id) {
+        if (id.length() >= 2 && ((id.startsWith("\"") && id.endsWith("\""))
+                || (id.startsWith("<") && id.endsWith(">")))) {
+            return id;
+        }
+        boolean plain = !id.isEmpty();
+        for (int i = 0; i < id.length() && plain; i++) {
+            char c = id.charAt(i);
+            plain = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '_' || c == '.' || c >= 0x80;
+        }
+        if (plain) {
+            return id;
+        }
+        return '"' + id.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * @return the tasks in id order
+     */
+    static ArrayList<Task> sortedTasks(Collection<Task> tasks) {
+        ArrayList<Task> sorted = new ArrayList<>(tasks);
+        sorted.sort(Comparator.comparing(Task::getId));
+        return sorted;
+    }
+
+    /**
+     * @return the edges in order of their "parent-child" key
+     */
+    static ArrayList<Edge> sortedEdges(Collection<Edge> edges) {
+        ArrayList<Edge> sorted = new ArrayList<>(edges);
+        sorted.sort(DotScheduleWriter::compareKeys);
+        return sorted;
+    }
+
+    /**
+     * Compares the "parent-child" keys of two edges without building them.
+     */
+    private static int compareKeys(Edge edge1, Edge edge2) {
+        String parent1 = edge1.getParent().getId();
+        String parent2 = edge2.getParent().getId();
+        String child1 = edge1.getChild().getId();
+        String child2 = edge2.getChild().getId();
+        int length1 = parent1.length() + 1 + child1.length();
+        int length2 = parent2.length() + 1 + child2.length();
+        for (int i = 0; i < Math.min(length1, length2); i++) {
+            char c1 = keyChar(parent1, child1, i);
+            char c2 = keyChar(parent2, child2, i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return length1 - length2;
+    }
+
+    private static char keyChar(String parent, String child, int i) {
+        if (i < parent.length()) {
+            return parent.charAt(i);
+        }
+        return i == parent.length() ? '-' : child.charAt(i - parent.length() - 1);
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Map;
+
 /**
  * Edge defines an edge in the graph between two tasks.
  * This stores the child and parent tasks as well as the communication
@@ -7,6 +9,7 @@ public class Edge {
     private final Task child;
     private final Task parent;
     private final int communicationTime;
+    private Map<String, Object> attributes = null;
 
     /**
      * Constructor for Edge, defining the child task, parent task and communication time.
@@ -45,4 +48,16 @@ public class Edge {
         return communicationTime;
     }
 
+    /**
+     * @return every attribute of this edge as read from the dot file,
+     * or null if Weight was its only attribute
+     */
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    void setAttributes(Map<String, Object> attributes) {
+        this.attributes = attributes;
+    }
+
 }
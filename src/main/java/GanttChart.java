@@ -16,8 +16,12 @@ import javafx.stage.Stage;
 
 import javafx.util.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javafx.scene.chart.Axis.TickMark;
 
 import javafx.beans.NamedArg;
@@ -39,11 +43,11 @@ public class GanttChart<X,Y> extends XYChart<X,Y> {
         public long length;
         public String color;
         public Task task;
-        public short startTime;
+        public int startTime;
         public byte processor;
 
 
-        public ExtraData(long lengthMs, String color, Task task, short startTime, byte processor) {
+        public ExtraData(long lengthMs, String color, Task task, int startTime, byte processor) {
             super();
             this.length = lengthMs;
             this.color = color;
@@ -69,7 +73,7 @@ public class GanttChart<X,Y> extends XYChart<X,Y> {
         public Task getTask() {
             return task;
         }
-        public short getStartTime() {
+        public int getStartTime() {
             return startTime;
         }
 
@@ -78,6 +82,11 @@ public class GanttChart<X,Y> extends XYChart<X,Y> {
 
     private double blockHeight = 10;
 
+    // the series whose blocks were added, moved or removed since the last layout
+    private final Set<Series<X,Y>> dirtySeries = new HashSet<>();
+    private final Map<Data<X,Y>, Series<X,Y>> seriesOfItem = new IdentityHashMap<>();
+    private double[] lastAxisState;
+
     public GanttChart(@NamedArg("xAxis") Axis<X> xAxis, @NamedArg("yAxis") Axis<Y> yAxis) {
         this(xAxis, yAxis, FXCollections.<Series<X, Y>>observableArrayList());
     }
@@ -102,7 +111,7 @@ public class GanttChart<X,Y> extends XYChart<X,Y> {
         return ((ExtraData) obj).getTask();
     }
     
-    private static short getStartTime( Object obj){
+    private static int getStartTime( Object obj){
         return ((ExtraData) obj).getStartTime();
     }
 
@@ -110,36 +119,70 @@ public class GanttChart<X,Y> extends XYChart<X,Y> {
         return ((ExtraData) obj).getProcessor();
     }
 
+    /**
+     * Lays out the blocks of the series that changed since the last layout.
+     * When an axis has changed, e.g. its range grew or the chart was resized,
+     * every block moves and all the series are laid out again.
+     */
     @Override protected void layoutPlotChildren() {
+        double[] axisState = getAxisState();
+        boolean axesChanged = !Arrays.equals(axisState, lastAxisState);
+        lastAxisState = axisState;
 
         for (int seriesIndex=0; seriesIndex < getData().size(); seriesIndex++) {
 
             Series<X,Y> series = getData().get(seriesIndex);
+            if (!axesChanged && !dirtySeries.contains(series)) {
+                continue;
+            }
+            layoutSeries(series);
+        }
+        dirtySeries.clear();
+    }
 
-            Iterator<Data<X,Y>> iter = getDisplayedDataIterator(series);
-            while(iter.hasNext()) {
-                Data<X,Y> item = iter.next();
-                double x = getXAxis().getDisplayPosition(item.getXValue());
-                double y = getYAxis().getDisplayPosition(item.getYValue());
-                if (Double.isNaN(x) || Double.isNaN(y)) {
-                    continue;
-                }
-                Node block = item.getNode();
-                Rectangle ellipse;
-                if (block != null) {
-                    if (block instanceof StackPane) {
-                        StackPane region = (StackPane)item.getNode();
-                        if (region.getShape() == null) {
-                            ellipse = new Rectangle( getLength( item.getExtraValue()), getBlockHeight());
-                        } else if (region.getShape() instanceof Rectangle) {
-                            ellipse = (Rectangle)region.getShape();
-                        } else {
-                            return;
-                        }
-                        ellipse.setWidth( getLength( item.getExtraValue()) * ((getXAxis() instanceof NumberAxis) ? Math.abs(((NumberAxis)getXAxis()).getScale()) : 1));
-                        ellipse.setHeight(getBlockHeight() * ((getYAxis() instanceof NumberAxis) ? Math.abs(((NumberAxis)getYAxis()).getScale()) : 1));
-                        y -= getBlockHeight() / 2.0;
-                        
+    /**
+     * @return the scale and offset of both axes, which decide where every block is drawn
+     */
+    private double[] getAxisState() {
+        double[] state = new double[4];
+        if (getXAxis() instanceof ValueAxis) {
+            ValueAxis<?> xAxis = (ValueAxis<?>) getXAxis();
+            state[0] = xAxis.getScale();
+            state[1] = xAxis.getLowerBound();
+        }
+        state[2] = getYAxis().getHeight();
+        state[3] = (getYAxis() instanceof CategoryAxis) ? ((CategoryAxis) getYAxis()).getCategories().size() : 0;
+        return state;
+    }
+
+    private void layoutSeries(Series<X,Y> series) {
+        Iterator<Data<X,Y>> iter = getDisplayedDataIterator(series);
+        while(iter.hasNext()) {
+            Data<X,Y> item = iter.next();
+            double x = getXAxis().getDisplayPosition(item.getXValue());
+            double y = getYAxis().getDisplayPosition(item.getYValue());
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                continue;
+            }
+            Node block = item.getNode();
+            Rectangle ellipse;
+            if (block != null) {
+                if (block instanceof StackPane) {
+                    StackPane region = (StackPane)item.getNode();
+                    if (region.getShape() == null) {
+                        ellipse = new Rectangle( getLength( item.getExtraValue()), getBlockHeight());
+                    } else if (region.getShape() instanceof Rectangle) {
+                        ellipse = (Rectangle)region.getShape();
+                    } else {
+                        return;
+                    }
+                    double width = getLength( item.getExtraValue()) * ((getXAxis() instanceof NumberAxis) ? Math.abs(((NumberAxis)getXAxis()).getScale()) : 1);
+                    double height = getBlockHeight() * ((getYAxis() instanceof NumberAxis) ? Math.abs(((NumberAxis)getYAxis()).getScale()) : 1);
+                    y -= getBlockHeight() / 2.0;
+
+                    if (region.getShape() == null || ellipse.getWidth() != width || ellipse.getHeight() != height) {
+                        ellipse.setWidth(width);
+                        ellipse.setHeight(height);
 
                         // Note: workaround for RT-7689 - saw this in ProgressControlSkin
                         // The region doesn't update itself when the shape is mutated in place, so we
@@ -149,10 +192,10 @@ public class GanttChart<X,Y> extends XYChart<X,Y> {
                         region.setScaleShape(false);
                         region.setCenterShape(false);
                         region.setCacheShape(false);
-
-                        block.setLayoutX(x);
-                        block.setLayoutY(y);
                     }
+
+                    block.setLayoutX(x);
+                    block.setLayoutY(y);
                 }
             }
         }
@@ -169,15 +212,30 @@ public class GanttChart<X,Y> extends XYChart<X,Y> {
     @Override protected void dataItemAdded(Series<X,Y> series, int itemIndex, Data<X,Y> item) {
         Node block = createContainer(series, getData().indexOf(series), item, itemIndex);
         getPlotChildren().add(block);
+        seriesOfItem.put(item, series);
+        dirtySeries.add(series);
     }
 
     @Override protected  void dataItemRemoved(final Data<X,Y> item, final Series<X,Y> series) {
         final Node block = item.getNode();
         getPlotChildren().remove(block);
         removeDataItemFromDisplay(series, item);
+        seriesOfItem.remove(item);
+        dirtySeries.add(series);
     }
 
+    /**
+     * Called when a block is moved within its row or given new extra data,
+     * so only its colour is updated here and its series is laid out again.
+     */
     @Override protected void dataItemChanged(Data<X, Y> item) {
+        if (item.getNode() != null) {
+            item.getNode().setStyle("-fx-background-color:" + getColor( item.getExtraValue()));
+        }
+        Series<X,Y> series = seriesOfItem.get(item);
+        if (series != null) {
+            dirtySeries.add(series);
+        }
     }
 
     @Override protected  void seriesAdded(Series<X,Y> series, int seriesIndex) {
@@ -185,15 +243,19 @@ public class GanttChart<X,Y> extends XYChart<X,Y> {
             Data<X,Y> item = series.getData().get(j);
             Node container = createContainer(series, seriesIndex, item, j);
             getPlotChildren().add(container);
+            seriesOfItem.put(item, series);
         }
+        dirtySeries.add(series);
     }
 
     @Override protected  void seriesRemoved(final Series<X,Y> series) {
         for (XYChart.Data<X,Y> d : series.getData()) {
             final Node container = d.getNode();
             getPlotChildren().remove(container);
+            seriesOfItem.remove(d);
         }
         removeSeriesFromDisplay(series);
+        dirtySeries.remove(series);
 
     }
 
@@ -227,7 +289,7 @@ public class GanttChart<X,Y> extends XYChart<X,Y> {
             double blockHeight = getBlockHeight();
             double emptyHeight = totalHeight - blockHeight * processorCount;
             double segmentHeight = emptyHeight / (processorCount * 2);
-            int finishTime = visualiser.getCurrentSchedule().getFinishTime();
+            int finishTime = visualiser.getCurrentSnapshot().getFinishTime();
             //System.out.println(getXAxis().getTickLength());
             ObservableList<TickMark<X>> tickMarks = getXAxis().getTickMarks();
             double maxXAxisValue = Double.parseDouble(tickMarks.get(tickMarks.size()-1).getValue().toString());
@@ -0,0 +1,311 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules mid-size graphs, too large for TreeSearch to finish but small
+ * enough to improve on a single list schedule, with a genetic algorithm
+ * that runs for a fixed time.
+ *
+ * A chromosome is a priority for every task. ListScheduler decodes it by
+ * taking the ready task with the highest priority and placing it at its
+ * earliest start, the same rule the Schedule constructor uses. The HEFT
+ * and CPOP priorities are part of the first population. Decoding never
+ * keeps the critical path on one processor as CPOP does, so the CPOP
+ * schedule itself is kept aside and returned if nothing beats it. The
+ * result is therefore never worse than either heuristic.
+ *
+ * Each thread evolves its own island of the population with its own
+ * ListScheduler, so the chromosomes are evaluated on every core without
+ * any locking. Every MIGRATION_INTERVAL generations an island replaces its
+ * worst chromosome with the best one found by any island.
+ */
+public class GeneticScheduler {
+    private static final int ISLAND_SIZE = 40;
+    private static final int ELITE_COUNT = 2;
+    private static final int TOURNAMENT_SIZE = 3;
+    private static final int MIGRATION_INTERVAL = 25;
+    // the chance that a gene of a child comes from the fitter parent
+    private static final double FITTER_PARENT_BIAS = 0.7;
+    private static final double MUTATION_RATE = 0.3;
+
+    private final Graph graph;
+    private final int processorCount;
+    private final int threadCount;
+    private final long budgetMillis;
+    private final long seed;
+
+    private int[] best;
+    private int bestFinishTime = Integer.MAX_VALUE;
+    private final AtomicLong generations = new AtomicLong();
+    private int lowerBound;
+    private volatile long deadline;
+
+    /**
+     * @param graph the graph to schedule.
+     * @param processorCount the number of processors.
+     * @param threadCount the number of islands, each evolved by its own thread.
+     * @param budgetMillis how long to evolve the population for.
+     * @param seed the seed of the random choices.
+     */
+    public GeneticScheduler(Graph graph, int processorCount, int threadCount, long budgetMillis, long seed) {
+        this.graph = graph;
+        this.processorCount = processorCount;
+        this.threadCount = Math.max(1, threadCount);
+        this.budgetMillis = budgetMillis;
+        this.seed = seed;
+    }
+
+    /**
+     * Evolves the islands until the time budget runs out, or until a schedule
+     * reaches the lower bound and so is optimal.
+     * @return the processor and start time of every task in the best schedule found.
+     */
+    public List<TaskVariant> run() {
+        lowerBound = TreeSearch.getRootLowerBound(graph, processorCount);
+        List<TaskVariant> cpop = new ListScheduler(graph, processorCount).schedule(ListScheduler.Algorithm.CPOP);
+        int cpopFinishTime = 0;
+        for (TaskVariant state : cpop) {
+            cpopFinishTime = Math.max(cpopFinishTime, state.getFinishTime());
+        }
+        // no island needs to run if the CPOP schedule is already optimal
+        deadline = cpopFinishTime <= lowerBound ? System.nanoTime()
+                : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        ArrayList<Callable<Void>> islands = new ArrayList<>(threadCount);
+        for (int island = 0; island < threadCount; island++) {
+            long islandSeed = seed + island;
+            islands.add(() -> {
+                try {
+                    evolve(new SplittableRandom(islandSeed));
+                } catch (RuntimeException e) {
+                    // the other islands need not run out the budget
+                    deadline = System.nanoTime();
+                    throw e;
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> island : pool.invokeAll(islands)) {
+                island.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        synchronized (this) {
+            if (cpopFinishTime < bestFinishTime) {
+                bestFinishTime = cpopFinishTime;
+                return cpop;
+            }
+        }
+        ListScheduler scheduler = new ListScheduler(graph, processorCount);
+        scheduler.schedule(getBest());
+        return scheduler.getScheduledTasks();
+    }
+
+    /**
+     * @return the finish time of the best schedule found
+     */
+    public synchronized int getBestFinishTime() {
+        return bestFinishTime;
+    }
+
+    private synchronized int[] getBest() {
+        return best;
+    }
+
+    /**
+     * Copies the best chromosome found by any island, reading it and its
+     * finish time under the same lock so that they match.
+     * @param chromosome where the best chromosome is copied.
+     * @return the finish time of the best chromosome
+     */
+    private synchronized int copyBest(int[] chromosome) {
+        System.arraycopy(best, 0, chromosome, 0, chromosome.length);
+        return bestFinishTime;
+    }
+
+    /**
+     * @return the admissible lower bound of the root, which no schedule can finish before
+     */
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * @return the number of generations evolved, over all islands
+     */
+    public long getGenerations() {
+        return generations.get();
+    }
+
+    /**
+     * Offers a chromosome as the best found.
+     * @return true if it was better than the best so far
+     */
+    private synchronized boolean offer(int[] chromosome, int finishTime) {
+        if (finishTime >= bestFinishTime) {
+            return false;
+        }
+        best = chromosome.clone();
+        bestFinishTime = finishTime;
+        if (finishTime <= lowerBound) {
+            // optimal, so every island can stop
+            deadline = System.nanoTime();
+        }
+        return true;
+    }
+
+    private void evolve(SplittableRandom random) {
+        ListScheduler scheduler = new ListScheduler(graph, processorCount);
+        int taskCount = scheduler.getTaskCount();
+
+        int[][] population = new int[ISLAND_SIZE][];
+        population[0] = toRanks(scheduler.getPriorities(ListScheduler.Algorithm.HEFT));
+        population[1] = toRanks(scheduler.getPriorities(ListScheduler.Algorithm.CPOP));
+        for (int i = 2; i < ISLAND_SIZE; i++) {
+            population[i] = randomRanks(taskCount, random);
+        }
+        int[] finishTimes = new int[ISLAND_SIZE];
+        for (int i = 0; i < ISLAND_SIZE; i++) {
+            finishTimes[i] = scheduler.schedule(population[i]);
+        }
+
+        int[][] nextPopulation = new int[ISLAND_SIZE][taskCount];
+        int[] nextFinishTimes = new int[ISLAND_SIZE];
+        long generation = 0;
+        while (System.nanoTime() < deadline) {
+            sortByFinishTime(population, finishTimes);
+            offer(population[0], finishTimes[0]);
+
+            if (generation > 0 && generation % MIGRATION_INTERVAL == 0) {
+                finishTimes[ISLAND_SIZE - 1] = copyBest(population[ISLAND_SIZE - 1]);
+            }
+
+            for (int i = 0; i < ISLAND_SIZE; i++) {
+                if (i < ELITE_COUNT) {
+                    System.arraycopy(population[i], 0, nextPopulation[i], 0, taskCount);
+                    nextFinishTimes[i] = finishTimes[i];
+                    continue;
+                }
+                int first = select(finishTimes, random);
+                int second = select(finishTimes, random);
+                crossover(population[Math.min(first, second)], population[Math.max(first, second)],
+                        nextPopulation[i], random);
+                if (random.nextDouble() < MUTATION_RATE) {
+                    mutate(nextPopulation[i], random);
+                }
+                nextFinishTimes[i] = scheduler.schedule(nextPopulation[i]);
+            }
+
+            int[][] swap = population;
+            population = nextPopulation;
+            nextPopulation = swap;
+            int[] swapTimes = finishTimes;
+            finishTimes = nextFinishTimes;
+            nextFinishTimes = swapTimes;
+            generation++;
+        }
+        sortByFinishTime(population, finishTimes);
+        offer(population[0], finishTimes[0]);
+        generations.addAndGet(generation);
+    }
+
+    /**
+     * Picks the fittest of a few random chromosomes. The population is
+     * sorted by finish time, so that is the one with the lowest index.
+     * @return the index of the chosen chromosome
+     */
+    private static int select(int[] finishTimes, SplittableRandom random) {
+        int chosen = random.nextInt(finishTimes.length);
+        for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+            chosen = Math.min(chosen, random.nextInt(finishTimes.length));
+        }
+        return chosen;
+    }
+
+    /**
+     * Takes each gene from one of the parents, more often the fitter one.
+     * Any list of priorities decodes to a valid schedule, so the child
+     * needs no repair.
+     */
+    private static void crossover(int[] fitter, int[] other, int[] child, SplittableRandom random) {
+        for (int i = 0; i < child.length; i++) {
+            child[i] = random.nextDouble() < FITTER_PARENT_BIAS ? fitter[i] : other[i];
+        }
+    }
+
+    /**
+     * Swaps the priorities of two tasks.
+     */
+    private static void mutate(int[] chromosome, SplittableRandom random) {
+        int first = random.nextInt(chromosome.length);
+        int second = random.nextInt(chromosome.length);
+        int priority = chromosome[first];
+        chromosome[first] = chromosome[second];
+        chromosome[second] = priority;
+    }
+
+    /**
+     * Sorts the population from the lowest finish time, by insertion, as
+     * most of it is still in order from the last generation.
+     */
+    private static void sortByFinishTime(int[][] population, int[] finishTimes) {
+        for (int i = 1; i < population.length; i++) {
+            int[] chromosome = population[i];
+            int finishTime = finishTimes[i];
+            int j = i - 1;
+            while (j >= 0 && finishTimes[j] > finishTime) {
+                population[j + 1] = population[j];
+                finishTimes[j + 1] = finishTimes[j];
+                j--;
+            }
+            population[j + 1] = chromosome;
+            finishTimes[j + 1] = finishTime;
+        }
+    }
+
+    /**
+     * Replaces priorities by their ranks, keeping the order ListScheduler
+     * takes the tasks in, so that chromosomes from the heuristics and random
+     * ones are on the same scale when they are crossed.
+     */
+    private static int[] toRanks(int[] priorities) {
+        long[] order = new long[priorities.length];
+        for (int i = 0; i < priorities.length; i++) {
+            // lower indices first among equal priorities, as in ListScheduler
+            order[i] = ((long) priorities[i] << 32) | (Integer.MAX_VALUE - i);
+        }
+        Arrays.sort(order);
+        int[] ranks = new int[priorities.length];
+        for (int rank = 0; rank < order.length; rank++) {
+            ranks[Integer.MAX_VALUE - (int) order[rank]] = rank;
+        }
+        return ranks;
+    }
+
+    private static int[] randomRanks(int taskCount, SplittableRandom random) {
+        int[] ranks = new int[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            int j = random.nextInt(i + 1);
+            ranks[i] = ranks[j];
+            ranks[j] = i;
+        }
+        return ranks;
+    }
+}
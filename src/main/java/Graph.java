@@ -1,21 +1,32 @@
-import com.paypal.digraph.parser.GraphEdge;
-import com.paypal.digraph.parser.GraphNode;
-
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * Representation of Graph structure as a set of tasks.
  * In our problem, the graph is read-only.
  */
 public class Graph {
+    /**
+     * The largest sum of all task weights and communication times a graph may
+     * have. No start time, finish time or idle time of a schedule is above
+     * that sum, and no cost is above twice it, so all of them fit in an int.
+     */
+    public static final int MAX_TOTAL_TIME = Integer.MAX_VALUE / 2;
+
     private HashMap<String, Task> tasks;
-    private HashMap<String, GraphNode> nodes;
-    private DotParser parser;
+    private ArrayList<Task> topologicalOrder;
     private int totalWeight;
+    private String outputFileName;
+    private ScheduleWriter outputWriter = new DotScheduleWriter();
 
     /**
      * Creates a graph based on a dot file.
@@ -23,72 +34,118 @@ public class Graph {
      */
     public Graph(String inputFile, String outputFileName) {
         try {
-            this.parser = new DotParser(new FileInputStream(inputFile), outputFileName);
-            tasks = new HashMap<>();
-            nodes = new HashMap<>();
-            setupGraph();
-            int weightSum = 0;
-            for (Task task: getTasks()) {
-                weightSum += task.getWeight();
+            if (inputFile.endsWith(BinaryGraphFormat.EXTENSION)) {
+                this.outputFileName = outputFileName;
+                this.tasks = BinaryGraphFormat.read(inputFile);
+                setupGraph();
+            } else {
+                load(new FileInputStream(inputFile), outputFileName);
             }
-            this.totalWeight = weightSum;
         }
         catch (FileNotFoundException e) {
             System.out.println("File not found.");
         }
+        catch (IOException e) {
+            // a graph that failed to load must not be used
+            throw new UncheckedIOException("Could not read " + inputFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates a graph from a dot description read from a stream.
+     * @param inputStream the stream containing the dot description.
+     * @param outputFileName the name used for the output graph.
+     */
+    public Graph(InputStream inputStream, String outputFileName) {
+        load(inputStream, outputFileName);
+    }
+
+    /**
+     * Creates a graph from tasks whose edges are already connected,
+     * such as those built by the GraphGenerator.
+     * @param tasks the tasks of the graph by id.
+     * @param outputFileName the name used for the output graph.
+     */
+    Graph(HashMap<String, Task> tasks, String outputFileName) {
+        this.outputFileName = outputFileName;
+        this.tasks = tasks;
+        setupGraph();
+    }
+
+    private void load(InputStream inputStream, String outputFileName) {
+        this.outputFileName = outputFileName;
+        tasks = new DotParser(inputStream, outputFileName).getTasks();
+        setupGraph();
     }
 
     /**
      * Call all the methods required to setup
-     * the graph.
+     * the graph. The tasks and edges are
+     * created by the DotParser or BinaryGraphFormat.
      */
     private void setupGraph() {
-        assignTasks();
-        assignEdges();
+        long weightSum = 0;
+        long totalTime = 0;
+        for (Task task: getTasks()) {
+            weightSum += task.getWeight();
+            for (Edge edge : task.getChildren()) {
+                totalTime += edge.getCommunicationTime();
+            }
+        }
+        totalTime += weightSum;
+        if (totalTime > MAX_TOTAL_TIME) {
+            throw new IllegalArgumentException("The weights and communication times of the graph add up to "
+                    + totalTime + ", above the largest supported total of " + MAX_TOTAL_TIME + ".");
+        }
+        this.totalWeight = (int) weightSum;
         setBottomLevels();
     }
 
     /**
-     * Uses the information from DotParser to
-     * create graph tasks.
+     * Find bottom level of all tasks, children before parents, so that
+     * findBottomLevel never recurses more than one level however deep
+     * the graph is.
      */
-    private void assignTasks() {
-        // create tasks from parsed nodes
-        for (GraphNode node : parser.parseNodes()) {
-            short weight = Short.parseShort((String) node.getAttribute("Weight"));
-            Task task = new Task(weight, node.getId());
-            tasks.put(node.getId(), task);
-            nodes.put(node.getId(), node);
+    private void setBottomLevels() {
+        topologicalOrder = findTopologicalOrder();
+        for (int i = topologicalOrder.size() - 1; i >= 0; i--) {
+            topologicalOrder.get(i).findBottomLevel();
         }
     }
 
     /**
-     * Uses the information from DotParser to
-     * create graph edges.
+     * Orders the tasks so that every task comes after all of its parents,
+     * by repeatedly taking the tasks whose parents have all been taken.
+     * @return the tasks in topological order.
      */
-    private void assignEdges() {
-        for (GraphEdge parsedEdge : parser.parseEdges()) {
-            int communicationTime = Integer.parseInt((String) parsedEdge.getAttribute("Weight"));
-            GraphNode parentNode = parsedEdge.getNode1();
-            GraphNode childNode = parsedEdge.getNode2();
-            String parentId = parentNode.getId();
-            String childId = childNode.getId();
-
-            Edge edge = new Edge(tasks.get(childId), tasks.get(parentId), communicationTime);
-
-            tasks.get(parentId).addChild(edge);
-            tasks.get(childId).addParent(edge);
+    private ArrayList<Task> findTopologicalOrder() {
+        HashMap<Task, Integer> remainingParents = new HashMap<>(tasks.size() * 2);
+        for (Task task : tasks.values()) {
+            for (Edge edge : task.getChildren()) {
+                remainingParents.merge(edge.getChild(), 1, Integer::sum);
+            }
+        }
+        ArrayList<Task> order = getStartTasks();
+        for (int i = 0; i < order.size(); i++) {
+            for (Edge edge : order.get(i).getChildren()) {
+                Task child = edge.getChild();
+                int remaining = remainingParents.merge(child, -1, Integer::sum);
+                if (remaining == 0) {
+                    order.add(child);
+                }
+            }
+        }
+        if (order.size() < tasks.size()) {
+            throw new IllegalArgumentException("The graph has a cycle, so it cannot be scheduled.");
         }
+        return order;
     }
 
     /**
-     * Find bottom level of all start tasks,
-     * And therefore the whole graph.
+     * @return the tasks ordered so that every task comes after all of its parents
      */
-    private void setBottomLevels() {
-        for (Task task : getStartTasks()) {
-            task.findBottomLevel();
-        }
+    public List<Task> getTopologicalOrder() {
+        return topologicalOrder;
     }
 
     /**
@@ -115,14 +172,60 @@ public class Graph {
      * @param node used to find processor and start times.
      */
     public void generateOutputGraph(Node node) {
-        for (TaskVariant state : node.getSchedule().getScheduledTasks().values()) {
-            GraphNode mappedNode = nodes.get(state.getTask().getId());
-            if (mappedNode != null) {
-                mappedNode.setAttribute("Start",state.getStartTime());
-                mappedNode.setAttribute("Processor",state.getProcessor());
-            }
+        generateOutputGraph(node.getSchedule().getScheduledTasks().values());
+    }
+
+    /**
+     * Writes the scheduled graph to the output file,
+     * in the format of the output writer.
+     * @param scheduledTasks the processor and start time of every task.
+     */
+    public void generateOutputGraph(Collection<TaskVariant> scheduledTasks) {
+        try (OutputStream out = new FileOutputStream(outputFileName)) {
+            generateOutputGraph(scheduledTasks, out);
+        } catch (IOException e) {
+            System.out.println("Output error occurred.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the scheduled graph to a stream instead of the output file.
+     * @param scheduledTasks the processor and start time of every task.
+     * @param out where the output is written.
+     */
+    public void generateOutputGraph(Collection<TaskVariant> scheduledTasks, OutputStream out) throws IOException {
+        HashMap<Task, TaskVariant> schedule = new HashMap<>(scheduledTasks.size() * 2);
+        for (TaskVariant state : scheduledTasks) {
+            schedule.put(state.getTask(), state);
+        }
+        outputWriter.write(getName(), getTasks(), getEdges(), schedule, out);
+    }
+
+    /**
+     * Sets the format the output graph is written in.
+     * @param outputWriter the writer for the output format.
+     */
+    public void setOutputWriter(ScheduleWriter outputWriter) {
+        this.outputWriter = outputWriter;
+    }
+
+    /**
+     * @return the name of the output graph, which is the output file without its extension
+     */
+    public String getName() {
+        return outputFileName.replace(outputWriter.getExtension(), "");
+    }
+
+    /**
+     * @return all the edges in the graph
+     */
+    public Collection<Edge> getEdges() {
+        ArrayList<Edge> edges = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            edges.addAll(task.getChildren());
         }
-        parser.writeScheduleToDot();
+        return edges;
     }
 
     /**
@@ -132,7 +235,6 @@ public class Graph {
     public Collection<Task> getTasks() {
         return tasks.values();
     }
-    public Collection<GraphNode> getGraphNodes() { return nodes.values(); }
     /**
      * Debugging tool - prints out the bottom level of every task
      */
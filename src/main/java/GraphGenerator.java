@@ -0,0 +1,426 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates seeded, reproducible task graphs for scaling experiments.
+ *
+ * Tasks are numbered so that every edge goes from a lower to a higher id.
+ * Edge weights are drawn from the same distribution as task weights, scaled
+ * so that the mean communication cost is the CCR (communication to
+ * computation ratio) times the mean task weight.
+ */
+public class GraphGenerator {
+
+    public enum Shape {
+        OUT_TREE("OutTree"),
+        IN_TREE("InTree"),
+        FORK_JOIN("ForkJoin"),
+        SERIES_PARALLEL("SeriesParallel"),
+        RANDOM_LAYERED("RandomLayered"),
+        PIPELINE("Pipeline");
+
+        private final String label;
+
+        Shape(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @param name a shape name such as out-tree or OutTree
+         * @return the matching shape
+         */
+        public static Shape parse(String name) {
+            String normalised = name.replace("-", "").replace("_", "").toLowerCase(Locale.ROOT);
+            for (Shape shape : values()) {
+                if (shape.label.toLowerCase(Locale.ROOT).equals(normalised)) {
+                    return shape;
+                }
+            }
+            throw new IllegalArgumentException("Unknown graph shape " + name);
+        }
+    }
+
+    public enum WeightDistribution {
+        UNIFORM, NORMAL, BIMODAL;
+
+        public static WeightDistribution parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown weight distribution " + name);
+            }
+        }
+    }
+
+    private final Shape shape;
+    private final int taskCount;
+    private final long seed;
+    private double ccr = 1.0;
+    private double density = 0.3;
+    private WeightDistribution distribution = WeightDistribution.UNIFORM;
+    private int minWeight = 1;
+    private int maxWeight = 10;
+
+    // the generated graph, built on the first request
+    private int[] weights;
+    private ArrayList<int[]> edges;
+
+    /**
+     * @param shape the shape of the graph.
+     * @param taskCount the number of tasks.
+     * @param seed the seed of the random generator.
+     */
+    public GraphGenerator(Shape shape, int taskCount, long seed) {
+        if (taskCount < 1) {
+            throw new IllegalArgumentException("Please enter a positive number of tasks.");
+        }
+        this.shape = shape;
+        this.taskCount = taskCount;
+        this.seed = seed;
+    }
+
+    /**
+     * @param ccr the ratio of mean communication cost to mean task weight.
+     */
+    public void setCcr(double ccr) {
+        this.ccr = ccr;
+        weights = null;
+    }
+
+    /**
+     * @param density between 0 and 1. It is the chance of an edge between tasks
+     * in consecutive layers of random graphs, and gives wider trees, fork-joins
+     * and pipelines and more parallel branches in series-parallel graphs.
+     */
+    public void setDensity(double density) {
+        this.density = Math.max(0, Math.min(1, density));
+        weights = null;
+    }
+
+    public void setWeightDistribution(WeightDistribution distribution) {
+        this.distribution = distribution;
+        weights = null;
+    }
+
+    public void setWeightRange(int minWeight, int maxWeight) {
+        if (minWeight < 0 || maxWeight < minWeight || maxWeight > Graph.MAX_TOTAL_TIME) {
+            throw new IllegalArgumentException("Please enter a valid weight range.");
+        }
+        this.minWeight = minWeight;
+        this.maxWeight = maxWeight;
+        weights = null;
+    }
+
+    /**
+     * @return a name describing the graph, in the style of the example graphs
+     */
+    public String getName() {
+        return String.format(Locale.ROOT, "%s_Nodes_%d_CCR_%.1f_WeightType_%s_Seed_%d",
+                shape.getLabel(), taskCount, ccr, distribution.name().charAt(0)
+                        + distribution.name().substring(1).toLowerCase(Locale.ROOT), seed);
+    }
+
+    /**
+     * Writes the graph as a dot file in the input format.
+     * @param writer where the dot file is written.
+     */
+    public void writeDot(Writer writer) throws IOException {
+        generate();
+        writer.write("digraph \"" + getName() + "\" {\n");
+        int nextEdge = 0;
+        for (int i = 0; i < taskCount; i++) {
+            writer.write("\t" + i + "\t [Weight=" + weights[i] + "];\n");
+            // edges are written once both of their tasks have been declared
+            while (nextEdge < edges.size() && edges.get(nextEdge)[1] == i) {
+                int[] edge = edges.get(nextEdge++);
+                writer.write("\t" + edge[0] + " -> " + edge[1] + "\t [Weight=" + edge[2] + "];\n");
+            }
+        }
+        writer.write("}\n");
+    }
+
+    /**
+     * Builds the graph directly, without writing a dot file.
+     * @param outputFileName the output file of the graph.
+     * @return the generated graph.
+     */
+    public Graph toGraph(String outputFileName) {
+        generate();
+        Task[] tasks = new Task[taskCount];
+        HashMap<String, Task> byId = new HashMap<>(taskCount * 2);
+        for (int i = 0; i < taskCount; i++) {
+            tasks[i] = new Task(weights[i], Integer.toString(i));
+            byId.put(tasks[i].getId(), tasks[i]);
+        }
+        for (int[] edge : edges) {
+            Edge graphEdge = new Edge(tasks[edge[1]], tasks[edge[0]], edge[2]);
+            tasks[edge[0]].addChild(graphEdge);
+            tasks[edge[1]].addParent(graphEdge);
+        }
+        return new Graph(byId, outputFileName);
+    }
+
+    private void generate() {
+        if (weights != null) {
+            return;
+        }
+        Random random = new Random(seed);
+        weights = new int[taskCount];
+        long weightSum = 0;
+        for (int i = 0; i < taskCount; i++) {
+            weights[i] = drawWeight(random, minWeight, maxWeight);
+            weightSum += weights[i];
+        }
+
+        ArrayList<int[]> pairs;
+        switch (shape) {
+            case OUT_TREE:
+                pairs = outTree(random);
+                break;
+            case IN_TREE:
+                pairs = new ArrayList<>();
+                for (int[] edge : outTree(random)) {
+                    pairs.add(new int[] {taskCount - 1 - edge[1], taskCount - 1 - edge[0]});
+                }
+                break;
+            case FORK_JOIN:
+                pairs = forkJoin(random);
+                break;
+            case SERIES_PARALLEL:
+                pairs = seriesParallel(random);
+                break;
+            case RANDOM_LAYERED:
+                pairs = randomLayered(random);
+                break;
+            default:
+                pairs = pipeline();
+                break;
+        }
+
+        // communication costs with a mean of ccr times the mean task weight
+        double meanWeight = (double) weightSum / taskCount;
+        double midpoint = (minWeight + maxWeight) / 2.0;
+        double scale = midpoint == 0 ? 0 : ccr * meanWeight / midpoint;
+        edges = new ArrayList<>(pairs.size());
+        for (int[] pair : pairs) {
+            int cost = (int) Math.round(drawWeight(random, minWeight, maxWeight) * scale);
+            edges.add(new int[] {pair[0], pair[1], cost});
+        }
+        // order edges by child so that writeDot can interleave them with the tasks
+        edges.sort((a, b) -> a[1] != b[1] ? a[1] - b[1] : a[0] - b[0]);
+    }
+
+    private int drawWeight(Random random, int min, int max) {
+        double unit;
+        switch (distribution) {
+            case NORMAL:
+                unit = 0.5 + random.nextGaussian() / 6;
+                break;
+            case BIMODAL:
+                unit = (random.nextBoolean() ? 0.2 : 0.8) + random.nextGaussian() / 12;
+                break;
+            default:
+                unit = random.nextDouble();
+                break;
+        }
+        unit = Math.max(0, Math.min(1, unit));
+        return min + (int) Math.round(unit * (max - min));
+    }
+
+    private int maxBranching() {
+        return 2 + (int) Math.round(density * 6);
+    }
+
+    private ArrayList<int[]> outTree(Random random) {
+        ArrayList<int[]> pairs = new ArrayList<>();
+        int[] childCount = new int[taskCount];
+        int branching = maxBranching();
+        // breadth first: a task takes children until it is full
+        int parent = 0;
+        for (int child = 1; child < taskCount; child++) {
+            while (childCount[parent] >= branching
+                    || (childCount[parent] > 0 && random.nextDouble() > density + 0.5)) {
+                parent++;
+            }
+            pairs.add(new int[] {parent, child});
+            childCount[parent]++;
+        }
+        return pairs;
+    }
+
+    private ArrayList<int[]> forkJoin(Random random) {
+        ArrayList<int[]> pairs = new ArrayList<>();
+        int join = 0;
+        int next = 1;
+        while (next < taskCount) {
+            int width = Math.min(1 + random.nextInt(maxBranching()), taskCount - next);
+            int first = next;
+            for (int i = 0; i < width; i++) {
+                pairs.add(new int[] {join, next++});
+            }
+            if (next < taskCount) {
+                for (int i = first; i < first + width; i++) {
+                    pairs.add(new int[] {i, next});
+                }
+                join = next++;
+            }
+        }
+        return pairs;
+    }
+
+    private ArrayList<int[]> seriesParallel(Random random) {
+        // grow by replacing a random edge u -> v with u -> w -> v (series)
+        // or adding u -> w -> v next to it (parallel)
+        ArrayList<int[]> graphEdges = new ArrayList<>();
+        if (taskCount == 1) {
+            return graphEdges;
+        }
+        // positions in a topological order, renumbered at the end
+        ArrayList<Integer> order = new ArrayList<>();
+        order.add(0);
+        order.add(1);
+        graphEdges.add(new int[] {0, 1});
+        for (int w = 2; w < taskCount; w++) {
+            int index = random.nextInt(graphEdges.size());
+            int[] edge = graphEdges.get(index);
+            if (random.nextDouble() >= density) {
+                graphEdges.set(index, new int[] {edge[0], w});
+            } else {
+                graphEdges.add(new int[] {edge[0], w});
+            }
+            graphEdges.add(new int[] {w, edge[1]});
+            order.add(order.indexOf(edge[1]), w);
+        }
+        int[] rank = new int[taskCount];
+        for (int i = 0; i < order.size(); i++) {
+            rank[order.get(i)] = i;
+        }
+        ArrayList<int[]> pairs = new ArrayList<>();
+        for (int[] edge : graphEdges) {
+            pairs.add(new int[] {rank[edge[0]], rank[edge[1]]});
+        }
+        return pairs;
+    }
+
+    private ArrayList<int[]> randomLayered(Random random) {
+        ArrayList<int[]> pairs = new ArrayList<>();
+        int layerCount = Math.max(1, (int) Math.round(Math.sqrt(taskCount)));
+        // layer boundaries, each layer holding at least one task
+        int[] layerStart = new int[layerCount + 1];
+        for (int layer = 0; layer <= layerCount; layer++) {
+            layerStart[layer] = (int) ((long) layer * taskCount / layerCount);
+        }
+        for (int layer = 1; layer < layerCount; layer++) {
+            int previousStart = layerStart[layer - 1];
+            int previousSize = layerStart[layer] - previousStart;
+            for (int task = layerStart[layer]; task < layerStart[layer + 1]; task++) {
+                int required = previousStart + random.nextInt(previousSize);
+                pairs.add(new int[] {required, task});
+                for (int parent = previousStart; parent < layerStart[layer]; parent++) {
+                    if (parent != required && random.nextDouble() < density) {
+                        pairs.add(new int[] {parent, task});
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private ArrayList<int[]> pipeline() {
+        // a grid of items flowing through stages: each task depends on the
+        // previous stage of the same item and the same stage of the previous item
+        ArrayList<int[]> pairs = new ArrayList<>();
+        int stages = Math.max(1, 2 + (int) Math.round(density * 8));
+        for (int task = 0; task < taskCount; task++) {
+            int stage = task % stages;
+            if (stage > 0) {
+                pairs.add(new int[] {task - 1, task});
+            }
+            if (task >= stages) {
+                pairs.add(new int[] {task - stages, task});
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Entry point for "--generate SHAPE N OUTPUT [options]". Options are
+     * -seed S, -ccr X, -density D, -weights uniform|normal|bimodal,
+     * -min W, -max W and -count K. With -count, OUTPUT is a directory that
+     * gets K graphs with seeds S to S + K - 1.
+     * @param args the command line arguments, starting with --generate.
+     */
+    public static void run(String[] args) throws IOException {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Please enter a shape, task count and output after --generate.");
+        }
+        Shape shape = Shape.parse(args[1]);
+        int taskCount = Integer.parseInt(args[2]);
+        String output = args[3];
+        long seed = 0;
+        int count = 0;
+        double ccr = 1.0;
+        double density = 0.3;
+        WeightDistribution distribution = WeightDistribution.UNIFORM;
+        int minWeight = 1;
+        int maxWeight = 10;
+        for (int i = 4; i < args.length; i += 2) {
+            if (i == args.length - 1) {
+                throw new IllegalArgumentException("Please enter a value for option " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case ("-seed"):
+                    seed = Long.parseLong(value);
+                    break;
+                case ("-ccr"):
+                    ccr = Double.parseDouble(value);
+                    break;
+                case ("-density"):
+                    density = Double.parseDouble(value);
+                    break;
+                case ("-weights"):
+                    distribution = WeightDistribution.parse(value);
+                    break;
+                case ("-min"):
+                    minWeight = Integer.parseInt(value);
+                    break;
+                case ("-max"):
+                    maxWeight = Integer.parseInt(value);
+                    break;
+                case ("-count"):
+                    count = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown generator option " + args[i]);
+            }
+        }
+
+        if (count > 0) {
+            new File(output).mkdirs();
+        }
+        for (int i = 0; i < Math.max(count, 1); i++) {
+            GraphGenerator generator = new GraphGenerator(shape, taskCount, seed + i);
+            generator.setCcr(ccr);
+            generator.setDensity(density);
+            generator.setWeightDistribution(distribution);
+            generator.setWeightRange(minWeight, maxWeight);
+            String fileName = count > 0 ? new File(output, generator.getName() + ".dot").getPath() : output;
+            try (Writer writer = new BufferedWriter(new FileWriter(fileName))) {
+                generator.writeDot(writer);
+            }
+        }
+        System.out.println("Generated " + Math.max(count, 1) + " graph(s) in " + output);
+    }
+}
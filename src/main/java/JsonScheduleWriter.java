@@ -0,0 +1,83 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes the schedule as a JSON object with the graph name, the finish time,
+ * the scheduled tasks and the edges.
+ */
+public class JsonScheduleWriter implements ScheduleWriter {
+
+    @Override
+    public String getExtension() {
+        return ".json";
+    }
+
+    @Override
+    public void write(String graphName, Collection<Task> tasks, Collection<Edge> edges,
+                      Map<Task, TaskVariant> schedule, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        int finishTime = 0;
+        for (TaskVariant state : schedule.values()) {
+            finishTime = Math.max(finishTime, state.getFinishTime());
+        }
+
+        writer.write("{\"graph\":");
+        writeString(graphName, writer);
+        writer.write(",\"finishTime\":");
+        writer.write(Integer.toString(finishTime));
+        writer.write(",\"tasks\":[");
+        boolean first = true;
+        for (Task task : DotScheduleWriter.sortedTasks(tasks)) {
+            TaskVariant state = schedule.get(task);
+            if (state == null) {
+                continue;
+            }
+            writer.write(first ? "\n{\"id\":" : ",\n{\"id\":");
+            first = false;
+            writeString(task.getId(), writer);
+            writer.write(",\"weight\":");
+            writer.write(Integer.toString(task.getWeight()));
+            writer.write(",\"start\":");
+            writer.write(Integer.toString(state.getStartTime()));
+            writer.write(",\"processor\":");
+            writer.write(Integer.toString(state.getProcessor()));
+            writer.write('}');
+        }
+        writer.write("],\"edges\":[");
+        first = true;
+        for (Edge edge : DotScheduleWriter.sortedEdges(edges)) {
+            writer.write(first ? "\n{\"from\":" : ",\n{\"from\":");
+            first = false;
+            writeString(edge.getParent().getId(), writer);
+            writer.write(",\"to\":");
+            writeString(edge.getChild().getId(), writer);
+            writer.write(",\"weight\":");
+            writer.write(Integer.toString(edge.getCommunicationTime()));
+            writer.write('}');
+        }
+        writer.write("]}\n");
+        writer.flush();
+    }
+
+    static void writeString(String value, Writer writer) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,355 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Schedules graphs that are far too large for TreeSearch with the HEFT and
+ * CPOP list scheduling heuristics. The schedules are not optimal, but a
+ * graph of 100,000 tasks is scheduled in a fraction of a second.
+ *
+ * Both heuristics repeatedly take the ready task with the highest priority
+ * and put it on the processor where it finishes earliest, after the last
+ * task already on that processor, the same way Schedule places tasks. HEFT
+ * ranks the tasks by bottom level. CPOP ranks them by top plus bottom level
+ * and keeps the tasks of one critical path on one processor. Any other
+ * priority list can be scheduled the same way.
+ *
+ * The graph is copied into primitive arrays indexed by topological order,
+ * and the earliest finish time on every processor is found with one pass
+ * over the parents of a task, so scheduling is O(V.P + E) plus the heap.
+ */
+public class ListScheduler {
+
+    public enum Algorithm {
+        HEFT, CPOP;
+
+        /**
+         * @param name heft or cpop, in any case
+         * @return the matching algorithm
+         */
+        public static Algorithm parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown heuristic " + name + ", use heft or cpop");
+            }
+        }
+    }
+
+    private static final int CRITICAL_PROCESSOR = 0;
+
+    private final int processorCount;
+
+    // the tasks in topological order, and the graph as arrays over their indices
+    private final Task[] tasks;
+    private final int[] weights;
+    private final int[] bottomLevels;
+    private final int[] parentStart;
+    private final int[] parents;
+    private final int[] parentCosts;
+    private final int[] childStart;
+    private final int[] children;
+
+    // the schedule being built
+    private final int[] finishTimes;
+    private final int[] startTimes;
+    private final byte[] processors;
+    private final int[] processorFinishTimes;
+
+    // finish time of the latest parent on each processor, for the task being placed
+    private final int[] localReadyTimes;
+    private final int[] touchedProcessors;
+    // the task each processor's local ready time was last set for
+    private final int[] touchedBy;
+
+    // the ready tasks, and the parents each task is waiting for
+    private final long[] heap;
+    private final int[] remainingParents;
+
+    /**
+     * @param graph the graph to schedule.
+     * @param processorCount the number of processors.
+     */
+    public ListScheduler(Graph graph, int processorCount) {
+        this.processorCount = processorCount;
+
+        List<Task> order = graph.getTopologicalOrder();
+        int taskCount = order.size();
+        tasks = order.toArray(new Task[0]);
+        HashMap<Task, Integer> indices = new HashMap<>(taskCount * 2);
+        for (int i = 0; i < taskCount; i++) {
+            indices.put(tasks[i], i);
+        }
+
+        weights = new int[taskCount];
+        bottomLevels = new int[taskCount];
+        childStart = new int[taskCount + 1];
+        for (int i = 0; i < taskCount; i++) {
+            weights[i] = tasks[i].getWeight();
+            bottomLevels[i] = tasks[i].getBottomLevel();
+            childStart[i + 1] = childStart[i] + tasks[i].getChildren().size();
+        }
+
+        // children and communication times by edge, then the same edges grouped by child
+        int edgeCount = childStart[taskCount];
+        children = new int[edgeCount];
+        int[] childCosts = new int[edgeCount];
+        parentStart = new int[taskCount + 1];
+        for (int i = 0; i < taskCount; i++) {
+            int e = childStart[i];
+            for (Edge edge : tasks[i].getChildren()) {
+                int child = indices.get(edge.getChild());
+                children[e] = child;
+                childCosts[e++] = edge.getCommunicationTime();
+                parentStart[child + 1]++;
+            }
+        }
+        for (int i = 0; i < taskCount; i++) {
+            parentStart[i + 1] += parentStart[i];
+        }
+        parents = new int[edgeCount];
+        parentCosts = new int[edgeCount];
+        int[] parentsFilled = Arrays.copyOf(parentStart, taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            for (int e = childStart[i]; e < childStart[i + 1]; e++) {
+                int slot = parentsFilled[children[e]]++;
+                parents[slot] = i;
+                parentCosts[slot] = childCosts[e];
+            }
+        }
+
+        finishTimes = new int[taskCount];
+        startTimes = new int[taskCount];
+        processors = new byte[taskCount];
+        processorFinishTimes = new int[processorCount];
+        localReadyTimes = new int[processorCount];
+        touchedProcessors = new int[processorCount];
+        touchedBy = new int[processorCount];
+        Arrays.fill(touchedBy, -1);
+        heap = new long[taskCount];
+        remainingParents = new int[taskCount];
+    }
+
+    /**
+     * @param algorithm the heuristic to schedule with.
+     * @return the processor and start time of every task.
+     */
+    public List<TaskVariant> schedule(Algorithm algorithm) {
+        int[] priorities = getPriorities(algorithm);
+        Arrays.fill(processorFinishTimes, 0);
+        placeByPriority(priorities, algorithm == Algorithm.CPOP ? findCriticalPath(priorities) : null);
+        return getScheduledTasks();
+    }
+
+    /**
+     * Schedules the tasks in the order given by a priority list, such as a
+     * chromosome of the GeneticScheduler, keeping the schedule for
+     * getScheduledTasks.
+     * @param priorities a priority for each task index, the ready task with the highest going first.
+     * @return the finish time of the schedule.
+     */
+    public int schedule(int[] priorities) {
+        Arrays.fill(processorFinishTimes, 0);
+        placeByPriority(priorities, null);
+        int finishTime = 0;
+        for (int processorFinishTime : processorFinishTimes) {
+            finishTime = Math.max(finishTime, processorFinishTime);
+        }
+        return finishTime;
+    }
+
+    /**
+     * @return the processor and start time of every task in the last schedule
+     */
+    public List<TaskVariant> getScheduledTasks() {
+        ArrayList<TaskVariant> scheduled = new ArrayList<>(tasks.length);
+        for (int i = 0; i < tasks.length; i++) {
+            scheduled.add(new TaskVariant(tasks[i], startTimes[i], processors[i]));
+        }
+        return scheduled;
+    }
+
+    /**
+     * @return the number of tasks, which are indexed in topological order
+     */
+    public int getTaskCount() {
+        return tasks.length;
+    }
+
+    /**
+     * HEFT uses the bottom level of each task. Taking the ready task with
+     * the highest bottom level is the same as taking all tasks by
+     * decreasing bottom level, as a parent's is at least its children's.
+     * CPOP uses the top plus bottom level.
+     * @param algorithm the heuristic.
+     * @return the priority of each task index under the heuristic.
+     */
+    public int[] getPriorities(Algorithm algorithm) {
+        if (algorithm == Algorithm.HEFT) {
+            return bottomLevels.clone();
+        }
+        int[] priorities = new int[tasks.length];
+        int[] topLevels = new int[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            for (int e = parentStart[i]; e < parentStart[i + 1]; e++) {
+                int parent = parents[e];
+                topLevels[i] = Math.max(topLevels[i], topLevels[parent] + weights[parent]);
+            }
+            priorities[i] = topLevels[i] + bottomLevels[i];
+        }
+        return priorities;
+    }
+
+    /**
+     * Follows one critical path from the first critical entry task. The
+     * tasks on a critical path have the largest top plus bottom level, the
+     * length of the path, and CPOP puts them all on the critical processor.
+     */
+    private boolean[] findCriticalPath(int[] priorities) {
+        int criticalLength = 0;
+        for (int priority : priorities) {
+            criticalLength = Math.max(criticalLength, priority);
+        }
+        boolean[] critical = new boolean[tasks.length];
+        int task = -1;
+        for (int i = 0; i < tasks.length && task < 0; i++) {
+            if (parentStart[i] == parentStart[i + 1] && priorities[i] == criticalLength) {
+                task = i;
+            }
+        }
+        while (task >= 0) {
+            critical[task] = true;
+            int next = -1;
+            for (int e = childStart[task]; e < childStart[task + 1] && next < 0; e++) {
+                if (priorities[children[e]] == criticalLength) {
+                    next = children[e];
+                }
+            }
+            task = next;
+        }
+        return critical;
+    }
+
+    /**
+     * Places the ready task with the highest priority until all are placed,
+     * taking them from a heap.
+     * @param priorities the priority of each task index.
+     * @param critical the tasks to put on the critical processor, or null.
+     */
+    private void placeByPriority(int[] priorities, boolean[] critical) {
+        int heapSize = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            remainingParents[i] = parentStart[i + 1] - parentStart[i];
+            if (remainingParents[i] == 0) {
+                heapSize = push(heap, heapSize, priorityKey(priorities[i], i));
+            }
+        }
+        while (heapSize > 0) {
+            int next = Integer.MAX_VALUE - (int) heap[0];
+            heapSize = pop(heap, heapSize);
+            place(next, critical != null && critical[next] ? CRITICAL_PROCESSOR : -1);
+            for (int e = childStart[next]; e < childStart[next + 1]; e++) {
+                int child = children[e];
+                if (--remainingParents[child] == 0) {
+                    heapSize = push(heap, heapSize, priorityKey(priorities[child], child));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a heap key ordering higher priorities first, then lower indices
+     */
+    private static long priorityKey(int priority, int index) {
+        return ((long) priority << 32) | (Integer.MAX_VALUE - index);
+    }
+
+    private static int push(long[] heap, int size, long key) {
+        int i = size;
+        while (i > 0 && heap[(i - 1) / 2] < key) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = key;
+        return size + 1;
+    }
+
+    private static int pop(long[] heap, int size) {
+        long last = heap[--size];
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return size;
+    }
+
+    /**
+     * Puts a task on the processor where it finishes earliest, or on the
+     * given processor. On a processor, the data of a parent is ready when
+     * the parent finishes if it ran there, or after the communication time
+     * otherwise. Keeping the latest remote arrival over all parents and the
+     * latest from a different processor than that one gives the remote ready
+     * time for every processor without another pass over the parents.
+     * @param task the index of the task.
+     * @param onlyProcessor the processor to use, or -1 to choose the best.
+     */
+    private void place(int task, int onlyProcessor) {
+        int latestRemote = 0;
+        int latestRemoteProcessor = -1;
+        int latestOtherRemote = 0;
+        int touched = 0;
+        for (int e = parentStart[task]; e < parentStart[task + 1]; e++) {
+            int parent = parents[e];
+            int processor = processors[parent];
+            int finish = finishTimes[parent];
+            int arrival = finish + parentCosts[e];
+            if (processor == latestRemoteProcessor) {
+                latestRemote = Math.max(latestRemote, arrival);
+            } else if (arrival > latestRemote) {
+                latestOtherRemote = latestRemote;
+                latestRemote = arrival;
+                latestRemoteProcessor = processor;
+            } else {
+                latestOtherRemote = Math.max(latestOtherRemote, arrival);
+            }
+            if (touchedBy[processor] != task) {
+                touchedBy[processor] = task;
+                touchedProcessors[touched++] = processor;
+            }
+            localReadyTimes[processor] = Math.max(localReadyTimes[processor], finish);
+        }
+
+        int first = onlyProcessor < 0 ? 0 : onlyProcessor;
+        int last = onlyProcessor < 0 ? processorCount - 1 : onlyProcessor;
+        int bestStart = Integer.MAX_VALUE;
+        int bestProcessor = first;
+        for (int processor = first; processor <= last; processor++) {
+            int remote = processor == latestRemoteProcessor ? latestOtherRemote : latestRemote;
+            int start = Math.max(processorFinishTimes[processor], Math.max(remote, localReadyTimes[processor]));
+            if (start < bestStart) {
+                bestStart = start;
+                bestProcessor = processor;
+            }
+        }
+        for (int i = 0; i < touched; i++) {
+            localReadyTimes[touchedProcessors[i]] = 0;
+            touchedBy[touchedProcessors[i]] = -1;
+        }
+
+        startTimes[task] = bestStart;
+        finishTimes[task] = bestStart + weights[task];
+        processors[task] = (byte) bestProcessor;
+        processorFinishTimes[bestProcessor] = finishTimes[task];
+    }
+}
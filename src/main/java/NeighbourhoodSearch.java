@@ -0,0 +1,328 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Improves a complete schedule, such as one from ListScheduler, one window
+ * of tasks at a time, for graphs far too large for TreeSearch.
+ *
+ * The tasks are taken in start time order. The tasks before a window keep
+ * their places, the tasks after it keep their processors and their order on
+ * them, and the windowSize tasks in it are scheduled again exactly: an A*
+ * search over Schedule nodes like TreeSearch's, bounded by the backwards
+ * cost and by a relaxed replay of the fixed tasks after the window. A
+ * window that finds a shorter schedule replaces the current one. One
+ * window is solved per thread at a time, and the search stops when a
+ * whole pass over the windows finds no improvement.
+ */
+public class NeighbourhoodSearch {
+    // the schedule entries all open nodes of a window may hold before it gives up
+    private static final int MAX_WINDOW_ENTRIES = 2000000;
+    private static final int MIN_WINDOW_NODES = 500;
+
+    private final Graph graph;
+    private final int processorCount;
+    private final int windowSize;
+    private final int threadCount;
+    private final IdentityHashMap<Task, Integer> topologicalIndices = new IdentityHashMap<>();
+
+    private int solvedWindows = 0;
+    private int improvedWindows = 0;
+
+    /**
+     * @param graph the graph the schedules are for.
+     * @param processorCount the number of processors.
+     * @param windowSize the number of tasks scheduled again at a time.
+     * @param threadCount the number of windows solved at once.
+     */
+    public NeighbourhoodSearch(Graph graph, int processorCount, int windowSize, int threadCount) {
+        this.graph = graph;
+        this.processorCount = processorCount;
+        this.windowSize = Math.max(1, Math.min(windowSize, graph.getTaskCount()));
+        this.threadCount = Math.max(1, threadCount);
+        List<Task> order = graph.getTopologicalOrder();
+        for (int i = 0; i < order.size(); i++) {
+            topologicalIndices.put(order.get(i), i);
+        }
+    }
+
+    /**
+     * Improves a schedule until no window can be improved, or the schedule
+     * reaches the lower bound of the root.
+     * @param schedule the processor and start time of every task.
+     * @return the improved schedule.
+     */
+    public List<TaskVariant> improve(Collection<TaskVariant> schedule) {
+        List<TaskVariant> current = normalise(schedule);
+        int currentFinishTime = getFinishTime(current);
+        int lowerBound = TreeSearch.getRootLowerBound(graph, processorCount);
+
+        // windows overlap by half, so a task near the edge of one is in the middle of the next
+        int taskCount = current.size();
+        int step = Math.max(1, windowSize / 2);
+        int windowCount = Math.max(1, (taskCount - windowSize + step - 1) / step + 1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            int next = 0;
+            int sinceImprovement = 0;
+            while (sinceImprovement < windowCount && currentFinishTime > lowerBound) {
+                List<TaskVariant> base = current;
+                int bestFinishTime = currentFinishTime;
+                ArrayList<Callable<List<TaskVariant>>> work = new ArrayList<>();
+                int batch = Math.min(threadCount, windowCount - sinceImprovement);
+                for (int i = 0; i < batch; i++) {
+                    int offset = Math.min((next + i) % windowCount * step, taskCount - windowSize);
+                    work.add(() -> solveWindow(base, offset, bestFinishTime));
+                }
+                next = (next + batch) % windowCount;
+                solvedWindows += batch;
+
+                List<TaskVariant> improved = null;
+                for (Future<List<TaskVariant>> result : pool.invokeAll(work)) {
+                    List<TaskVariant> candidate = result.get();
+                    if (candidate != null && (improved == null || getFinishTime(candidate) < getFinishTime(improved))) {
+                        improved = candidate;
+                    }
+                }
+                if (improved != null) {
+                    current = normalise(improved);
+                    currentFinishTime = getFinishTime(current);
+                    improvedWindows++;
+                    sinceImprovement = 0;
+                } else {
+                    sinceImprovement += batch;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return current;
+    }
+
+    /**
+     * @return the number of windows searched
+     */
+    public int getSolvedWindows() {
+        return solvedWindows;
+    }
+
+    /**
+     * @return the number of windows that improved the schedule
+     */
+    public int getImprovedWindows() {
+        return improvedWindows;
+    }
+
+    /**
+     * Schedules the tasks of one window again with A*, keeping the tasks
+     * before and after it fixed.
+     * @param schedule the current schedule, normalised.
+     * @param offset the position of the first task of the window.
+     * @param bestFinishTime the finish time to beat.
+     * @return a schedule finishing before bestFinishTime, or null if the window has none
+     */
+    private List<TaskVariant> solveWindow(List<TaskVariant> schedule, int offset, int bestFinishTime) {
+        List<TaskVariant> suffix = schedule.subList(offset + windowSize, schedule.size());
+        HashMap<Task, TaskVariant> suffixStates = new HashMap<>(suffix.size() * 2);
+        for (TaskVariant state : suffix) {
+            suffixStates.put(state.getTask(), state);
+        }
+        Task[] windowTasks = new Task[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            windowTasks[i] = schedule.get(offset + i).getTask();
+        }
+        int usedProcessors = 0;
+        for (TaskVariant state : schedule) {
+            usedProcessors = Math.max(usedProcessors, state.getProcessor() + 1);
+        }
+
+        Schedule root = new Schedule(schedule.subList(0, offset), graph);
+        PriorityQueue<Node> openList = new PriorityQueue<Node>(Comparator.comparingInt(Node::getCost));
+        HashSet<String> createdNodes = new HashSet<String>();
+        openList.add(new Node(getBound(root, windowTasks, suffix, suffixStates), root));
+        int maxNodes = Math.max(MIN_WINDOW_NODES, MAX_WINDOW_ENTRIES / schedule.size());
+
+        while (!openList.isEmpty() && createdNodes.size() < maxNodes) {
+            Node node = openList.poll();
+            if (node.getCost() >= bestFinishTime) {
+                return null;
+            }
+            // the bound of a node with the whole window placed is its finish time
+            Schedule partial = node.getSchedule();
+            if (partial.getScheduledTasks().size() == offset + windowSize) {
+                return complete(partial, suffix);
+            }
+
+            // the processors used anywhere in the schedule, and one empty one
+            int processors = Math.min(processorCount, Math.max(usedProcessors, partial.getProcessorFinishTimes().length) + 1);
+            for (Task task : windowTasks) {
+                if (!partial.getSchedulableTasks().containsKey(task)) {
+                    continue;
+                }
+                for (byte processor = 0; processor < processors; processor++) {
+                    Schedule successor = new Schedule(task, processor, partial);
+                    if (createdNodes.add(windowSignature(successor, windowTasks))) {
+                        int bound = getBound(successor, windowTasks, suffix, suffixStates);
+                        if (bound < bestFinishTime) {
+                            openList.add(new Node(bound, successor));
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A lower bound on the finish time of any schedule completing a partial
+     * one with the tasks after the window fixed. Besides the backwards cost,
+     * the fixed tasks are replayed with two relaxations: a window task not
+     * yet placed finishes as soon as its parents allow, without
+     * communication, and does not take time on any processor. Every task
+     * then starts no later than it could in a real completion, and when the
+     * whole window is placed the replay is exact.
+     */
+    private int getBound(Schedule partial, Task[] windowTasks, List<TaskVariant> suffix,
+                         HashMap<Task, TaskVariant> suffixStates) {
+        HashMap<Task, Integer> finishTimes = new HashMap<>();
+        int bound = partial.getBackwardsCost(graph, processorCount);
+        for (Task task : windowTasks) {
+            if (partial.taskisScheduled(task)) {
+                continue;
+            }
+            // the window is in start order, so unplaced parents in it come first
+            int readyTime = 0;
+            for (Task parentTask : task.getParents()) {
+                TaskVariant parentState = partial.getTaskState(parentTask);
+                readyTime = Math.max(readyTime, parentState != null ? parentState.getFinishTime() : finishTimes.get(parentTask));
+            }
+            finishTimes.put(task, readyTime + task.getWeight());
+        }
+
+        int[] processorFinishTimes = Arrays.copyOf(partial.getProcessorFinishTimes(),
+                Math.max(processorCount, partial.getProcessorFinishTimes().length));
+        for (TaskVariant state : suffix) {
+            Task task = state.getTask();
+            byte processor = state.getProcessor();
+            int startTime = processorFinishTimes[processor];
+            for (Task parentTask : task.getParents()) {
+                TaskVariant parentState = partial.getTaskState(parentTask);
+                if (parentState == null) {
+                    parentState = suffixStates.get(parentTask);
+                }
+                int parentFinishTime;
+                if (parentState == null) {
+                    // a window task not placed yet
+                    parentFinishTime = finishTimes.get(parentTask);
+                } else {
+                    parentFinishTime = finishTimes.getOrDefault(parentTask, parentState.getFinishTime());
+                    if (parentState.getProcessor() != processor) {
+                        parentFinishTime += task.getParentCommunicationTime(parentTask);
+                    }
+                }
+                startTime = Math.max(startTime, parentFinishTime);
+            }
+            int finishTime = startTime + task.getWeight();
+            finishTimes.put(task, finishTime);
+            processorFinishTimes[processor] = finishTime;
+            bound = Math.max(bound, finishTime);
+        }
+        return bound;
+    }
+
+    /**
+     * The processors are not interchangeable here, as the tasks after the
+     * window are fixed to theirs, so the signature of Node would merge
+     * different schedules. The tasks before the window are the same in
+     * every node, so only the window is compared.
+     */
+    private static String windowSignature(Schedule schedule, Task[] windowTasks) {
+        StringBuilder signature = new StringBuilder();
+        for (Task task : windowTasks) {
+            TaskVariant state = schedule.getTaskState(task);
+            if (state == null) {
+                signature.append('-');
+            } else {
+                signature.append(state.getStartTime()).append('@').append(state.getProcessor());
+            }
+            signature.append('`');
+        }
+        return signature.toString();
+    }
+
+    /**
+     * Adds the tasks after the window to a schedule, in their order and on
+     * their processors, each at its earliest start.
+     */
+    private List<TaskVariant> complete(Schedule schedule, List<TaskVariant> suffix) {
+        HashMap<Task, TaskVariant> placed = new HashMap<>(schedule.getScheduledTasks());
+        int[] finishTimes = Arrays.copyOf(schedule.getProcessorFinishTimes(),
+                Math.max(processorCount, schedule.getProcessorFinishTimes().length));
+        ArrayList<TaskVariant> complete = new ArrayList<>(placed.values());
+        for (TaskVariant state : suffix) {
+            Task task = state.getTask();
+            byte processor = state.getProcessor();
+            int startTime = finishTimes[processor];
+            for (Task parentTask : task.getParents()) {
+                TaskVariant parentState = placed.get(parentTask);
+                int parentFinishTime = parentState.getFinishTime();
+                if (parentState.getProcessor() != processor) {
+                    parentFinishTime += task.getParentCommunicationTime(parentTask);
+                }
+                startTime = Math.max(startTime, parentFinishTime);
+            }
+            TaskVariant moved = new TaskVariant(task, startTime, processor);
+            placed.put(task, moved);
+            complete.add(moved);
+            finishTimes[processor] = moved.getFinishTime();
+        }
+        return complete;
+    }
+
+    /**
+     * Orders a schedule by start time, parents before children when they
+     * start together, and names the processors in the order they are first
+     * used, so that the first task is on processor 0 and every prefix uses
+     * processors from 0 up, as the schedules of TreeSearch do.
+     */
+    private List<TaskVariant> normalise(Collection<TaskVariant> schedule) {
+        ArrayList<TaskVariant> ordered = new ArrayList<>(schedule);
+        ordered.sort(Comparator.comparingInt(TaskVariant::getStartTime)
+                .thenComparingInt(state -> topologicalIndices.get(state.getTask())));
+        byte[] labels = new byte[TreeSearch.MAX_PROCESSORS];
+        Arrays.fill(labels, (byte) -1);
+        byte nextLabel = 0;
+        for (int i = 0; i < ordered.size(); i++) {
+            TaskVariant state = ordered.get(i);
+            if (labels[state.getProcessor()] < 0) {
+                labels[state.getProcessor()] = nextLabel++;
+            }
+            ordered.set(i, new TaskVariant(state.getTask(), state.getStartTime(), labels[state.getProcessor()]));
+        }
+        return ordered;
+    }
+
+    private static int getFinishTime(List<TaskVariant> schedule) {
+        int finishTime = 0;
+        for (TaskVariant state : schedule) {
+            finishTime = Math.max(finishTime, state.getFinishTime());
+        }
+        return finishTime;
+    }
+}
@@ -1,14 +1,15 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Set;
 
 class Node {
-    protected short cost;
+    protected int cost;
     protected Schedule schedule;
     protected ArrayList<Node> successors = null;
     private String stringForm = null;
     protected Set<Task> schedulable;
 
-    public Node(short cost, Schedule schedule) {
+    public Node(int cost, Schedule schedule) {
         this.schedule = schedule;
         this.cost = cost;
         this.schedulable = schedule.getSchedulableTasks().keySet();
@@ -27,18 +28,18 @@ class Node {
     }
 
     public Node() {
-        this.cost = Short.MAX_VALUE;
+        this.cost = Integer.MAX_VALUE;
     }
 
     public Schedule getSchedule() {
         return this.schedule;
     }
 
-    public short getCost() {
+    public int getCost() {
         return this.cost;
     }
 
-    public void setCost(short cost) {
+    public void setCost(int cost) {
         this.cost = cost;
     }
 
@@ -66,7 +67,9 @@ class Node {
         ArrayList<Task> examinedTasks = new ArrayList<Task>();
         for (Task task : schedulable) {
             for (byte processor = 0; processor < processorsInUse; processor++) {
+                long phaseStart = PhaseTimer.start();
                 Schedule newSchedule = new Schedule(task, processor, schedule);
+                PhaseTimer.stop(PhaseTimer.Phase.SCHEDULE, phaseStart);
                 successorList.add(newSchedule);
                 if (newSchedule.getCost(graph, processorCount) == schedule.getCost(graph, processorCount)) {
                     tight = true;
@@ -91,6 +94,26 @@ class Node {
         return successorList;
     }
 
+    /**
+     * Makes a child node for every schedulable task on every processor in
+     * use and one empty processor, all at once. Unlike getSuccessors it
+     * does not expand in batches, which removes the tasks of each batch
+     * from the schedulable tasks that the children of the next batch copy.
+     */
+    public ArrayList<Node> getAllSuccessors(int processorCount, Graph graph) {
+        int processorsInUse = Math.min(schedule.getProcessorFinishTimes().length + 1, processorCount);
+        ArrayList<Node> successorList = new ArrayList<Node>();
+        for (Task task : schedule.getSchedulableTasks().keySet()) {
+            for (byte processor = 0; processor < processorsInUse; processor++) {
+                long phaseStart = PhaseTimer.start();
+                Schedule newSchedule = new Schedule(task, processor, schedule);
+                PhaseTimer.stop(PhaseTimer.Phase.SCHEDULE, phaseStart);
+                successorList.add(new Node(newSchedule, graph, processorCount));
+            }
+        }
+        return successorList;
+    }
+
     public String toString() {
         if (this.stringForm == null) {
             this.stringForm = buildString();
@@ -98,17 +121,39 @@ class Node {
         return this.stringForm;
     }
 
+    /**
+     * Builds the signature of the schedule, used to find duplicate nodes.
+     * The processors are identical, so schedules that only differ by which
+     * processor is which are the same: each processor is named by the order
+     * in which it first appears in scheduleOrder, which is sorted by task id,
+     * so every relabelling of the processors gets the same signature.
+     *
+     * This only stops symmetric schedules from being expanded more than
+     * once. expandNode still builds a child for every processor in use, and
+     * the searches drop the symmetric ones when their signature is already
+     * in the closed set.
+     */
     private String buildString() {
+        long phaseStart = PhaseTimer.start();
         StringBuilder stringBuilder = new StringBuilder();
+        byte[] labels = new byte[getSchedule().getProcessorFinishTimes().length];
+        Arrays.fill(labels, (byte) -1);
+        byte nextLabel = 0;
         for (TaskVariant task : getSchedule().scheduleOrder) {
+            int processor = task.getProcessor();
+            if (labels[processor] < 0) {
+                labels[processor] = nextLabel++;
+            }
             stringBuilder.append(task.getTask().getId());
             stringBuilder.append('%');
             stringBuilder.append(task.getStartTime());
             stringBuilder.append('@');
-            stringBuilder.append(task.getProcessor());
+            stringBuilder.append(labels[processor]);
             stringBuilder.append('`');
         }
-        return stringBuilder.toString();
+        String signature = stringBuilder.toString();
+        PhaseTimer.stop(PhaseTimer.Phase.SIGNATURE, phaseStart);
+        return signature;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Latency histograms for the phases of a node expansion, to see where the
+ * time per node goes.
+ *
+ * Timing is switched on by the system property scheduler.phases (the
+ * --phases option), which must be set before this class is loaded. ENABLED
+ * is then a constant, so when it is off the JIT removes the timing calls
+ * entirely. When it is on, each thread records into its own histograms,
+ * which are merged for the report at the end of the run.
+ */
+public class PhaseTimer {
+    public static final String PROPERTY = "scheduler.phases";
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    public enum Phase {
+        SCHEDULE("successor schedule"),
+        COST("cost evaluation"),
+        SIGNATURE("signature"),
+        DUPLICATE_LOOKUP("duplicate lookup"),
+        OPEN_INSERT("open list insert"),
+        OPEN_POLL("open list poll");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final ConcurrentLinkedQueue<Histogram[]> allHistograms = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<Histogram[]> threadHistograms = ThreadLocal.withInitial(() -> {
+        Histogram[] histograms = new Histogram[Phase.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+        allHistograms.add(histograms);
+        return histograms;
+    });
+
+    /**
+     * @return the start time of a phase, or 0 when timing is off
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since start in the histogram of the phase.
+     * @param phase the phase that was timed.
+     * @param start the value returned by start.
+     */
+    public static void stop(Phase phase, long start) {
+        if (ENABLED) {
+            threadHistograms.get()[phase.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Prints the count, total time and percentiles of every phase,
+     * merged over all threads.
+     */
+    public static void printReport() {
+        if (!ENABLED) {
+            return;
+        }
+        Phase[] phases = Phase.values();
+        Histogram[] merged = new Histogram[phases.length];
+        long totalNanos = 0;
+        for (int i = 0; i < phases.length; i++) {
+            merged[i] = new Histogram();
+            for (Histogram[] histograms : allHistograms) {
+                merged[i].add(histograms[i]);
+            }
+            totalNanos += merged[i].sum;
+        }
+
+        System.out.println("\nPhase times (ns):");
+        System.out.println(String.format(Locale.ROOT, "%-20s %12s %10s %6s %8s %8s %8s %8s %10s",
+                "phase", "count", "total ms", "share", "p50", "p90", "p99", "p99.9", "max"));
+        for (int i = 0; i < phases.length; i++) {
+            Histogram histogram = merged[i];
+            System.out.println(String.format(Locale.ROOT, "%-20s %12d %10.1f %5.1f%% %8d %8d %8d %8d %10d",
+                    phases[i].label, histogram.count, histogram.sum / 1e6,
+                    100.0 * histogram.sum / Math.max(1, totalNanos), histogram.percentile(0.5),
+                    histogram.percentile(0.9), histogram.percentile(0.99), histogram.percentile(0.999),
+                    histogram.max));
+        }
+    }
+
+    /**
+     * A log-linear histogram in the style of HdrHistogram: values below
+     * SUB_BUCKETS are exact and every larger power of two is split into
+     * SUB_BUCKETS / 2 equal buckets, so percentiles are within about six
+     * percent over the whole range of a long.
+     */
+    static class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+        private long count = 0;
+        private long sum = 0;
+        private long max = 0;
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            counts[index(value)]++;
+            count++;
+            sum += value;
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            sum += other.sum;
+            max = Math.max(max, other.max);
+        }
+
+        /**
+         * @param fraction between 0 and 1.
+         * @return the highest value in the bucket holding that fraction of the recorded values
+         */
+        long percentile(double fraction) {
+            long target = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target && seen > 0) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+            int subBucket = (int) (value >>> magnitude) - SUB_BUCKETS / 2;
+            return magnitude * SUB_BUCKETS / 2 + SUB_BUCKETS / 2 + subBucket;
+        }
+
+        private static long highestValue(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int magnitude = (index - SUB_BUCKETS / 2) / (SUB_BUCKETS / 2);
+            int subBucket = (index - SUB_BUCKETS / 2) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+            return ((long) (subBucket + 1) << magnitude) - 1;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds the optimal finish time of one graph for every processor count from
+ * 1 to N, for capacity planning, in one process that parses the graph once.
+ *
+ * The optimum never rises with more processors, as a schedule on P
+ * processors is also one on P + 1. So the best schedule known for fewer
+ * processors bounds the search for P from above, and the optimum for more
+ * processors bounds it from below. Each search prunes with the better of
+ * its HEFT schedule and the best schedule for fewer processors, and is
+ * skipped, or stopped, as soon as that schedule meets the lower bound.
+ * The processor counts are searched concurrently, and each one that
+ * finishes tightens the bounds of the searches still running.
+ */
+public class ProcessorSweep {
+    private final Graph graph;
+    private final int maxProcessors;
+    private final int threadCount;
+
+    // indexed by processor count, guarded by this
+    private final int[] bestFinishTimes;
+    private final List<Collection<TaskVariant>> bestSchedules;
+    private final boolean[] optimal;
+    private final int[] rootBounds;
+    private final TreeSearch[] running;
+    private final Result[] results;
+    private boolean stopped = false;
+
+    /**
+     * The outcome of the sweep for one processor count.
+     */
+    public static class Result {
+        private final int processorCount;
+        private final int finishTime;
+        private final long millis;
+        private final int nodesExpanded;
+        private final String source;
+
+        Result(int processorCount, int finishTime, long millis, int nodesExpanded, String source) {
+            this.processorCount = processorCount;
+            this.finishTime = finishTime;
+            this.millis = millis;
+            this.nodesExpanded = nodesExpanded;
+            this.source = source;
+        }
+
+        public int getProcessorCount() {
+            return processorCount;
+        }
+
+        public int getFinishTime() {
+            return finishTime;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public int getNodesExpanded() {
+            return nodesExpanded;
+        }
+
+        /**
+         * @return "search" if found by the search, otherwise where the schedule proven optimal came from
+         */
+        public String getSource() {
+            return source;
+        }
+    }
+
+    /**
+     * @param graph the graph to schedule.
+     * @param maxProcessors the largest processor count to schedule on.
+     * @param threadCount the number of processor counts searched at the same time.
+     */
+    public ProcessorSweep(Graph graph, int maxProcessors, int threadCount) {
+        this.graph = graph;
+        this.maxProcessors = maxProcessors;
+        this.threadCount = Math.max(1, threadCount);
+        bestFinishTimes = new int[maxProcessors + 1];
+        bestSchedules = new ArrayList<>(maxProcessors + 1);
+        for (int processorCount = 0; processorCount <= maxProcessors; processorCount++) {
+            bestFinishTimes[processorCount] = Integer.MAX_VALUE;
+            bestSchedules.add(null);
+        }
+        optimal = new boolean[maxProcessors + 1];
+        rootBounds = new int[maxProcessors + 1];
+        running = new TreeSearch[maxProcessors + 1];
+        results = new Result[maxProcessors + 1];
+    }
+
+    /**
+     * Entry point for "--sweep INPUT.dot N [-p THREADS]".
+     * @param args the command line arguments, starting with --sweep.
+     */
+    public static void run(String[] args) throws IOException {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Please enter a dot file and maximum processor count after --sweep.");
+        }
+        int maxProcessors;
+        try {
+            maxProcessors = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Please enter an integer for the maximum number of processors");
+        }
+        if (maxProcessors < 1 || maxProcessors > TreeSearch.MAX_PROCESSORS) {
+            throw new IllegalArgumentException("Please enter a valid number of processors.");
+        }
+        int threadCount = 1;
+        for (int i = 3; i < args.length; i++) {
+            if (i == args.length - 1) {
+                throw new IllegalArgumentException("Please enter a value for option " + args[i]);
+            }
+            switch (args[i]) {
+                case ("-p"):
+                    try {
+                        threadCount = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        throw new NumberFormatException("Please enter an integer for number of cores");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown sweep option " + args[i]);
+            }
+        }
+
+        Graph graph = new Graph(args[1], args[1].replaceAll("(.dot)$", "-output.dot"));
+        long start = System.currentTimeMillis();
+        List<Result> results = new ProcessorSweep(graph, maxProcessors, threadCount).sweep();
+        System.out.println("processors\tfinish time\ttime (ms)\tnodes expanded\tsource");
+        for (Result result : results) {
+            System.out.println(result.getProcessorCount() + "\t" + result.getFinishTime() + "\t" + result.getMillis()
+                    + "\t" + result.getNodesExpanded() + "\t" + result.getSource());
+        }
+        System.out.println("\nSwept " + maxProcessors + " processor counts in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Schedules the graph optimally on every processor count from 1 to the
+     * maximum. The largest count that can be used is searched first, as its
+     * optimum bounds all the others from below, and then the rest from 1
+     * processor up, as each schedule bounds the larger counts from above.
+     * If a processor count fails, the others are stopped and the failure is
+     * rethrown.
+     * @return the result for each processor count, from 1 processor up, or
+     * only those finished if the sweep was interrupted.
+     */
+    public List<Result> sweep() {
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        ArrayList<Future<?>> solves = new ArrayList<>(maxProcessors);
+        int largest = Math.max(1, Math.min(maxProcessors, graph.getTaskCount()));
+        solves.add(pool.submit(() -> solveOrStop(largest)));
+        for (int processorCount = 1; processorCount <= maxProcessors; processorCount++) {
+            if (processorCount != largest) {
+                int count = processorCount;
+                solves.add(pool.submit(() -> solveOrStop(count)));
+            }
+        }
+        try {
+            for (Future<?> solve : solves) {
+                solve.get();
+            }
+        } catch (InterruptedException e) {
+            stop();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Result> sweep = new ArrayList<>(maxProcessors);
+        synchronized (this) {
+            for (int processorCount = 1; processorCount <= maxProcessors; processorCount++) {
+                if (results[processorCount] != null) {
+                    sweep.add(results[processorCount]);
+                }
+            }
+        }
+        return sweep;
+    }
+
+    /**
+     * @return the best schedule found for a processor count, once the sweep has finished
+     */
+    public synchronized Collection<TaskVariant> getSchedule(int processorCount) {
+        return bestSchedules.get(processorCount);
+    }
+
+    private void solveOrStop(int processorCount) {
+        try {
+            solve(processorCount);
+        } catch (RuntimeException e) {
+            stop();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the searches still running, and those not started yet, without
+     * recording a result for them.
+     */
+    private synchronized void stop() {
+        stopped = true;
+        for (TreeSearch search : running) {
+            if (search != null) {
+                search.cancel();
+            }
+        }
+    }
+
+    private void solve(int processorCount) {
+        long start = System.currentTimeMillis();
+        List<TaskVariant> heft = new ListScheduler(graph, processorCount).schedule(ListScheduler.Algorithm.HEFT);
+        int rootBound = TreeSearch.getRootLowerBound(graph, processorCount);
+
+        TreeSearch search;
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            rootBounds[processorCount] = rootBound;
+            offer(processorCount, heft, getFinishTime(heft));
+            int seed = findSeed(processorCount);
+            if (bestFinishTimes[seed] <= getLowerBound(processorCount)) {
+                finish(processorCount, seed, false, start, 0);
+                return;
+            }
+            search = new TreeSearch(graph, processorCount, false);
+            search.setUpperBound(bestFinishTimes[seed]);
+            running[processorCount] = search;
+        }
+
+        Node node = search.aStar();
+        synchronized (this) {
+            running[processorCount] = null;
+            if (stopped) {
+                return;
+            }
+            boolean searched = node != null
+                    && node.getSchedule().getFinishTime() <= bestFinishTimes[findSeed(processorCount)];
+            if (searched) {
+                offer(processorCount, node.getSchedule().getScheduledTasks().values(), node.getSchedule().getFinishTime());
+            }
+            // otherwise the search was stopped or found nothing better, so the seed is the optimum
+            int source = searched ? processorCount : findSeed(processorCount);
+            finish(processorCount, source, searched, start, search.getExpandedNodesCount());
+            tightenRunning();
+        }
+    }
+
+    /**
+     * Records a schedule for a processor count if it is the best known.
+     */
+    private void offer(int processorCount, Collection<TaskVariant> schedule, int finishTime) {
+        if (finishTime <= bestFinishTimes[processorCount]) {
+            bestFinishTimes[processorCount] = finishTime;
+            bestSchedules.set(processorCount, schedule);
+        }
+    }
+
+    /**
+     * Marks the schedule of the source processor count as the optimum for
+     * this one. Only the first source processors are used in it.
+     */
+    private void finish(int processorCount, int source, boolean searched, long start, int nodesExpanded) {
+        bestFinishTimes[processorCount] = bestFinishTimes[source];
+        bestSchedules.set(processorCount, bestSchedules.get(source));
+        optimal[processorCount] = true;
+        String from = searched ? "search" : source == processorCount ? "HEFT" : "from P=" + source;
+        results[processorCount] = new Result(processorCount, bestFinishTimes[processorCount],
+                System.currentTimeMillis() - start, nodesExpanded, from);
+    }
+
+    /**
+     * @return the processor count, no larger than the given one, with the best schedule known
+     */
+    private int findSeed(int processorCount) {
+        int seed = processorCount;
+        for (int smaller = processorCount - 1; smaller >= 1; smaller--) {
+            if (bestFinishTimes[smaller] < bestFinishTimes[seed]) {
+                seed = smaller;
+            }
+        }
+        return seed;
+    }
+
+    /**
+     * The largest optimum known for as many processors or more, none of
+     * which can be beaten with fewer processors.
+     */
+    private int getLowerBound(int processorCount) {
+        int bound = rootBounds[processorCount];
+        // no schedule uses more processors than there are tasks, so those optima are all the same
+        int from = Math.min(processorCount, graph.getTaskCount());
+        for (int larger = Math.max(1, from); larger <= maxProcessors; larger++) {
+            if (optimal[larger]) {
+                bound = Math.max(bound, bestFinishTimes[larger]);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Passes a newly found optimum on to the searches still running, and
+     * stops those whose seed it proves optimal.
+     */
+    private void tightenRunning() {
+        for (int processorCount = 1; processorCount <= maxProcessors; processorCount++) {
+            TreeSearch search = running[processorCount];
+            if (search == null) {
+                continue;
+            }
+            int upperBound = bestFinishTimes[findSeed(processorCount)];
+            search.setUpperBound(upperBound);
+            if (upperBound <= getLowerBound(processorCount)) {
+                search.cancel();
+            }
+        }
+    }
+
+    private static int getFinishTime(Collection<TaskVariant> schedule) {
+        int finishTime = 0;
+        for (TaskVariant state : schedule) {
+            finishTime = Math.max(finishTime, state.getFinishTime());
+        }
+        return finishTime;
+    }
+}
@@ -0,0 +1,130 @@
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import javafx.stage.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A window of line charts showing the progress of the search over the whole
+ * run: nodes expanded per second, the size of the open list, the bound
+ * against the incumbent, and the heap in use.
+ *
+ * The samples are taken from the snapshots the visualiser renders and kept
+ * in a ProgressHistory, so the charts never have more points than its
+ * capacity and redraw at the same cost however long the search runs.
+ */
+public class ProgressCharts {
+    private static final int CAPACITY = 256;
+    private static final double SAMPLE_INTERVAL_SECONDS = 0.1;
+    private static final long REFRESH_INTERVAL_MILLIS = 500;
+
+    private static final int NODES_PER_SECOND = 0;
+    private static final int OPEN_LIST_SIZE = 1;
+    private static final int BOUND = 2;
+    private static final int INCUMBENT = 3;
+    private static final int HEAP_MB = 4;
+
+    private final ProgressHistory history = new ProgressHistory(CAPACITY, 5, SAMPLE_INTERVAL_SECONDS);
+    private final List<XYChart.Series<Number,Number>> series = new ArrayList<>();
+    private final Stage stage;
+
+    private int lastExpandedNodes = 0;
+    private double lastSeconds = 0;
+    private long lastRefresh = 0;
+    private boolean changed = false;
+
+    public ProgressCharts() {
+        String[] names = {"nodes/s", "open list", "bound", "incumbent", "heap MB"};
+        for (String name : names) {
+            XYChart.Series<Number,Number> chartSeries = new XYChart.Series<>();
+            chartSeries.setName(name);
+            series.add(chartSeries);
+        }
+
+        GridPane pane = new GridPane();
+        pane.add(createChart("Nodes Expanded per Second", "nodes/s", false,
+                List.of(series.get(NODES_PER_SECOND))), 0, 0);
+        pane.add(createChart("Open List Size", "nodes", false, List.of(series.get(OPEN_LIST_SIZE))), 1, 0);
+        pane.add(createChart("Bound and Incumbent", "time", true,
+                List.of(series.get(BOUND), series.get(INCUMBENT))), 0, 1);
+        pane.add(createChart("Heap in Use", "MB", false, List.of(series.get(HEAP_MB))), 1, 1);
+
+        stage = new Stage();
+        stage.setTitle("Search Progress");
+        stage.setScene(new Scene(pane, 900, 600));
+    }
+
+    private static LineChart<Number,Number> createChart(String title, String unit, boolean legend,
+                                                       List<XYChart.Series<Number,Number>> chartSeries) {
+        NumberAxis xAxis = new NumberAxis();
+        NumberAxis yAxis = new NumberAxis();
+        xAxis.setLabel("Search Time (s)");
+        yAxis.setLabel(unit);
+        yAxis.setForceZeroInRange(false);
+
+        LineChart<Number,Number> chart = new LineChart<>(xAxis, yAxis);
+        chart.setTitle(title);
+        chart.setCreateSymbols(false);
+        chart.setAnimated(false);
+        chart.setLegendVisible(legend);
+        chart.getData().addAll(chartSeries);
+        GridPane.setHgrow(chart, Priority.ALWAYS);
+        GridPane.setVgrow(chart, Priority.ALWAYS);
+        return chart;
+    }
+
+    public void show() {
+        stage.show();
+    }
+
+    /**
+     * Samples a snapshot of the search and refreshes the charts if they are
+     * due. Called on the JavaFX thread for every snapshot the visualiser shows.
+     * @param snapshot the latest snapshot of the search.
+     */
+    public void record(SearchSnapshot snapshot) {
+        double seconds = snapshot.getElapsedMillis() / 1000.0;
+        double elapsed = seconds - lastSeconds;
+        if (elapsed >= history.getInterval() || snapshot.isFinished()) {
+            Runtime runtime = Runtime.getRuntime();
+            double rate = elapsed > 0 ? (snapshot.getExpandedNodes() - lastExpandedNodes) / elapsed : 0;
+            double incumbent = snapshot.getIncumbent() < 0 ? Double.NaN : snapshot.getIncumbent();
+            if (history.add(seconds, rate, snapshot.getOpenListSize(), snapshot.getBound(), incumbent,
+                    (runtime.totalMemory() - runtime.freeMemory()) / 1e6)) {
+                lastExpandedNodes = snapshot.getExpandedNodes();
+                lastSeconds = seconds;
+                changed = true;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (changed && (now - lastRefresh >= REFRESH_INTERVAL_MILLIS || snapshot.isFinished())) {
+            refresh();
+            lastRefresh = now;
+        }
+    }
+
+    /**
+     * Replaces the points of every chart with the history, in one change per series.
+     */
+    private void refresh() {
+        for (int s = 0; s < series.size(); s++) {
+            ObservableList<XYChart.Data<Number,Number>> points = FXCollections.observableArrayList();
+            for (int i = 0; i < history.size(); i++) {
+                double value = history.getValue(s, i);
+                if (!Double.isNaN(value)) {
+                    points.add(new XYChart.Data<>(history.getTime(i), value));
+                }
+            }
+            series.get(s).getData().setAll(points);
+        }
+        changed = false;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * A fixed-size history of samples of several values over time, for the
+ * progress charts of the visualiser.
+ *
+ * The samples are kept in primitive arrays allocated once. When they are
+ * full, each pair of neighbouring samples is merged into one, averaging
+ * their values, and the interval between samples is doubled. The history
+ * therefore always covers the whole run, at a resolution that falls as the
+ * run gets longer, and never holds more than its capacity however long the
+ * run is.
+ */
+public class ProgressHistory {
+    private final int capacity;
+    private final double[] times;
+    private final double[][] values;
+    private int size = 0;
+    private double interval;
+    private double lastTime = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param capacity the most samples kept, at least 2.
+     * @param seriesCount the number of values in each sample.
+     * @param interval the shortest time between two samples at the start of the run.
+     */
+    public ProgressHistory(int capacity, int seriesCount, double interval) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("The capacity must be at least 2.");
+        }
+        this.capacity = capacity;
+        this.times = new double[capacity];
+        this.values = new double[seriesCount][capacity];
+        this.interval = interval;
+    }
+
+    /**
+     * Adds a sample, unless it comes sooner than the current interval after the last one.
+     * @param time the time of the sample.
+     * @param sample one value for each series.
+     * @return true if the sample was kept
+     */
+    public boolean add(double time, double... sample) {
+        if (time - lastTime < interval) {
+            return false;
+        }
+        if (size == capacity) {
+            downsample();
+        }
+        times[size] = time;
+        for (int series = 0; series < values.length; series++) {
+            values[series][size] = sample[series];
+        }
+        size++;
+        lastTime = time;
+        return true;
+    }
+
+    /**
+     * Merges each pair of samples into one, keeping the later time, and
+     * doubles the interval so that new samples come at the same resolution.
+     */
+    private void downsample() {
+        int merged = size / 2;
+        for (int i = 0; i < merged; i++) {
+            times[i] = times[2 * i + 1];
+            for (double[] series : values) {
+                series[i] = (series[2 * i] + series[2 * i + 1]) / 2;
+            }
+        }
+        if (size % 2 == 1) {
+            times[merged] = times[size - 1];
+            for (double[] series : values) {
+                series[merged] = series[size - 1];
+            }
+            merged++;
+        }
+        size = merged;
+        interval *= 2;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getTime(int index) {
+        return times[index];
+    }
+
+    public double getValue(int series, int index) {
+        return values[series][index];
+    }
+
+    /**
+     * @return the shortest time between two samples now
+     */
+    public double getInterval() {
+        return interval;
+    }
+}
@@ -0,0 +1,254 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the progress of the search to a browser, for machines where the
+ * JavaFX visualiser cannot run. "/" is a static page that draws the Gantt
+ * chart of the current best schedule, and "/events" streams the progress
+ * to it as Server-Sent Events.
+ *
+ * The search only publishes its snapshots, as it does for the visualiser.
+ * A single broadcaster thread reads the latest one at most every
+ * BROADCAST_PERIOD, turns it into JSON once and queues it for every client,
+ * so the search threads never serialise or block on a slow client. Each
+ * client is written by its own thread from a small queue that drops the
+ * oldest events, so a stalled client only holds up itself.
+ */
+public class ProgressServer {
+    public static final long BROADCAST_PERIOD = 250;
+    private static final long HEARTBEAT_PERIOD = 15000;
+    private static final String PAGE = "views/progress.html";
+    private static final int CLIENT_QUEUE_SIZE = 4;
+
+    private static volatile boolean started = false;
+
+    private final HttpServer server;
+    private final ScheduledExecutorService broadcaster;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private SearchSnapshot lastSnapshot;
+    private String lastEvent;
+    private long lastSend = 0;
+
+    /**
+     * Starts serving on the loopback interface. Use an ssh tunnel to watch
+     * a remote machine.
+     * @param port the local port to listen on, or 0 for any free port.
+     */
+    public ProgressServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::servePage);
+        server.createContext("/events", this::openEventStream);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "progress-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        broadcaster = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-broadcaster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.start();
+        broadcaster.scheduleAtFixedRate(this::broadcast, 0, BROADCAST_PERIOD, TimeUnit.MILLISECONDS);
+        started = true;
+        System.out.println("Progress at http://" + server.getAddress().getHostString() + ":" + getPort() + "/");
+    }
+
+    /**
+     * @return true if a progress server was started, so searches should publish snapshots
+     */
+    public static boolean isStarted() {
+        return started;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Sends the final state to the clients and stops serving. Clients that
+     * do not take it within a few broadcast periods are dropped.
+     */
+    public void stop() {
+        // the final state is queued by the broadcaster, which runs it before shutting down
+        broadcaster.execute(this::broadcast);
+        broadcaster.shutdown();
+        long deadline = System.currentTimeMillis() + BROADCAST_PERIOD * 4;
+        try {
+            broadcaster.awaitTermination(BROADCAST_PERIOD * 2, TimeUnit.MILLISECONDS);
+            for (Client client : clients) {
+                client.closing = true;
+            }
+            for (Client client : clients) {
+                client.finished.await(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.stop(0);
+    }
+
+    private void servePage(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals("/")) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] page;
+        try (InputStream in = ProgressServer.class.getResourceAsStream(PAGE)) {
+            page = in.readAllBytes();
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(200, page.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(page);
+        }
+    }
+
+    /**
+     * Keeps the response open as an event stream and sends the latest state
+     * straight away, so a client that connects late does not wait for a change.
+     * The handler thread then writes the client's events until it goes away.
+     */
+    private void openEventStream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        Client client = new Client(exchange.getResponseBody());
+        synchronized (this) {
+            clients.add(client);
+            if (lastEvent != null) {
+                client.offer("data: " + lastEvent + "\n\n");
+            }
+        }
+        client.run();
+    }
+
+    private synchronized void broadcast() {
+        TreeSearch search = SearchMonitor.getLatestSearch();
+        SearchSnapshot snapshot = search == null ? null : search.getSnapshot();
+        long now = System.currentTimeMillis();
+        if (snapshot != null && snapshot != lastSnapshot) {
+            lastSnapshot = snapshot;
+            lastEvent = toJson(snapshot, search.getProcessorCount());
+            sendToAll("data: " + lastEvent + "\n\n");
+        } else if (now - lastSend >= HEARTBEAT_PERIOD) {
+            // a comment line, which finds clients that have gone away
+            sendToAll(": heartbeat\n\n");
+        }
+    }
+
+    private void sendToAll(String message) {
+        lastSend = System.currentTimeMillis();
+        for (Client client : clients) {
+            client.offer(message);
+        }
+    }
+
+    /**
+     * An open event stream and the events waiting to be written to it.
+     */
+    private class Client {
+        private final OutputStream out;
+        private final ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<>(CLIENT_QUEUE_SIZE);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        // set when the server stops, so the client ends once its queue is empty
+        private volatile boolean closing = false;
+
+        Client(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Queues an event without blocking, dropping the oldest if the
+         * client has fallen behind, as only the latest state matters.
+         */
+        void offer(String message) {
+            while (!queue.offer(message)) {
+                queue.poll();
+            }
+        }
+
+        void run() {
+            try {
+                while (true) {
+                    String message = queue.poll(BROADCAST_PERIOD, TimeUnit.MILLISECONDS);
+                    if (message != null) {
+                        out.write(message.getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                    } else if (closing) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                // the client has gone away
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                clients.remove(this);
+                close(out);
+                finished.countDown();
+            }
+        }
+    }
+
+    private static void close(OutputStream client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            // the client is already gone
+        }
+    }
+
+    /**
+     * @return the snapshot as a single line of JSON
+     */
+    static String toJson(SearchSnapshot snapshot, int processorCount) {
+        StringWriter json = new StringWriter();
+        try {
+            writeJson(snapshot, processorCount, json);
+        } catch (IOException e) {
+            // a StringWriter does not throw
+            throw new IllegalStateException(e);
+        }
+        return json.toString();
+    }
+
+    private static void writeJson(SearchSnapshot snapshot, int processorCount, Writer writer) throws IOException {
+        writer.write("{\"processors\":" + processorCount);
+        writer.write(",\"elapsedMillis\":" + snapshot.getElapsedMillis());
+        writer.write(",\"expandedNodes\":" + snapshot.getExpandedNodes());
+        writer.write(",\"openListSize\":" + snapshot.getOpenListSize());
+        writer.write(",\"bound\":" + snapshot.getBound());
+        writer.write(",\"incumbent\":" + snapshot.getIncumbent());
+        writer.write(",\"finishTime\":" + snapshot.getFinishTime());
+        writer.write(",\"finished\":" + snapshot.isFinished());
+        writer.write(",\"tasks\":[");
+        boolean first = true;
+        for (TaskVariant state : snapshot.getScheduledTasks()) {
+            writer.write(first ? "{\"id\":" : ",{\"id\":");
+            first = false;
+            JsonScheduleWriter.writeString(state.getTask().getId(), writer);
+            writer.write(",\"weight\":" + state.getTask().getWeight());
+            writer.write(",\"start\":" + state.getStartTime());
+            writer.write(",\"processor\":" + state.getProcessor() + "}");
+        }
+        writer.write("]}");
+    }
+}
@@ -1,16 +1,18 @@
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map.Entry;
 
 class Schedule {
     private HashMap<Task,TaskVariant> scheduled;
-    private HashMap<Task,Short> schedulable;
+    private HashMap<Task,Integer> schedulable;
     protected ArrayList<TaskVariant> scheduleOrder;
-    private short[] processorFinishTimes;
-    protected short bottomLevelHeuristic = 0;
-    protected short dataReadyHeuristic = 0;
+    private int[] processorFinishTimes;
+    protected int bottomLevelHeuristic = 0;
+    protected int dataReadyHeuristic = 0;
     private boolean expanded = false;
-    protected short idleTime = 0;
+    protected int idleTime = 0;
 
     /**
      * Constructor for a schedule derived from a parent schedule
@@ -21,26 +23,26 @@ class Schedule {
      */
     public Schedule(Task task, byte processor, Schedule parentSchedule) {
 
-        schedulable = new HashMap<Task,Short>(parentSchedule.getSchedulableTasks());
+        schedulable = new HashMap<Task,Integer>(parentSchedule.getSchedulableTasks());
         schedulable.remove(task);
 
         scheduled = new HashMap<Task, TaskVariant>(parentSchedule.getScheduledTasks());
 
-        short[] parentTimes = parentSchedule.getProcessorFinishTimes();
+        int[] parentTimes = parentSchedule.getProcessorFinishTimes();
         if (parentTimes == null) {
-            parentTimes = new short[1];
+            parentTimes = new int[1];
         }
         if (processor < parentSchedule.getProcessorFinishTimes().length) {
             processorFinishTimes = parentSchedule.getProcessorFinishTimes().clone();
         } else {
-            processorFinishTimes = new short[processor + 1];
+            processorFinishTimes = new int[processor + 1];
             System.arraycopy(parentTimes, 0, processorFinishTimes, 0, parentTimes.length);
         }
 
-        short startTime = processorFinishTimes[processor];
+        int startTime = processorFinishTimes[processor];
         for (Task parentTask : task.getParents()) {
             TaskVariant parentState = getTaskState(parentTask);
-            short parentFinishTime = parentState.getFinishTime();
+            int parentFinishTime = parentState.getFinishTime();
             if (parentState.getProcessor() != processor) {
                 parentFinishTime += task.getParentCommunicationTime(parentTask);
             }
@@ -63,11 +65,11 @@ class Schedule {
             scheduleOrder.add(state);
         }
 
-        this.idleTime = (short)(parentSchedule.idleTime + state.getStartTime() - processorFinishTimes[processor]);
+        this.idleTime = parentSchedule.idleTime + state.getStartTime() - processorFinishTimes[processor];
         processorFinishTimes[processor] = state.getFinishTime();
 
         bottomLevelHeuristic = parentSchedule.bottomLevelHeuristic;
-        short tempBackwardsCost = (short) (startTime + task.getBottomLevel());
+        int tempBackwardsCost = startTime + task.getBottomLevel();
         if (tempBackwardsCost > bottomLevelHeuristic) {
             bottomLevelHeuristic = tempBackwardsCost;
         }
@@ -96,13 +98,13 @@ class Schedule {
         this.scheduleOrder = new ArrayList<TaskVariant>(1);
         scheduleOrder.add(state);
         
-        schedulable = new HashMap<Task,Short>(startTasks.size());
+        schedulable = new HashMap<Task,Integer>(startTasks.size());
         for (Task startTask : startTasks) {
-            schedulable.put(startTask, (short)0);
+            schedulable.put(startTask, 0);
         }
         schedulable.remove(task);
 
-        processorFinishTimes = new short[1];
+        processorFinishTimes = new int[1];
         processorFinishTimes[0] = task.getWeight();
 
         this.bottomLevelHeuristic = task.getBottomLevel();
@@ -123,6 +125,57 @@ class Schedule {
         }
     }
 
+    /**
+     * Constructor for a partial schedule with some tasks already placed,
+     * built at once rather than one task at a time. It is the same schedule
+     * as adding the placed tasks in start time order, provided none of them
+     * could start earlier.
+     * @param placed the tasks already scheduled, whose parents must all be placed too
+     * @param graph the graph the tasks belong to
+     */
+    Schedule(Collection<TaskVariant> placed, Graph graph) {
+        scheduled = new HashMap<Task, TaskVariant>(placed.size() * 2);
+        scheduleOrder = new ArrayList<TaskVariant>(placed);
+        scheduleOrder.sort(Comparator.comparing(state -> state.getTask().getId()));
+
+        int processorCount = 1;
+        for (TaskVariant state : placed) {
+            scheduled.put(state.getTask(), state);
+            processorCount = Math.max(processorCount, state.getProcessor() + 1);
+        }
+        processorFinishTimes = new int[processorCount];
+        for (TaskVariant state : placed) {
+            int processor = state.getProcessor();
+            processorFinishTimes[processor] = Math.max(processorFinishTimes[processor], state.getFinishTime());
+            idleTime -= state.getTask().getWeight();
+            int backwardsCost = state.getStartTime() + state.getTask().getBottomLevel();
+            if (backwardsCost > bottomLevelHeuristic) {
+                bottomLevelHeuristic = backwardsCost;
+            }
+        }
+        // the idle time is the time the processors are in use but not running a task
+        for (int finishTime : processorFinishTimes) {
+            idleTime += finishTime;
+        }
+
+        schedulable = new HashMap<Task, Integer>();
+        for (Task task : graph.getTasks()) {
+            if (scheduled.containsKey(task)) {
+                continue;
+            }
+            boolean allParentsScheduled = true;
+            for (Task parentTask : task.getParents()) {
+                if (!taskisScheduled(parentTask)) {
+                    allParentsScheduled = false;
+                    break;
+                }
+            }
+            if (allParentsScheduled) {
+                schedulable.put(task, getMinDataReadyTime(task));
+            }
+        }
+    }
+
     public boolean taskisScheduled(Task task) {
         return scheduled.containsKey(task);
     }
@@ -135,24 +188,27 @@ class Schedule {
         return scheduled;
     }
 
-    public HashMap<Task,Short> getSchedulableTasks() {
+    public HashMap<Task,Integer> getSchedulableTasks() {
         return schedulable;
     }
 
-    public short[] getProcessorFinishTimes() {
+    public int[] getProcessorFinishTimes() {
         return processorFinishTimes;
     }
 
-    public short getBackwardsCost(Graph graph, int numProcessors) {
-        return (short)Math.max(Math.max(bottomLevelHeuristic,DataReadyHeuristicStart()), (graph.getTotalWeight() + idleTime)/numProcessors);
+    public int getBackwardsCost(Graph graph, int numProcessors) {
+        return Math.max(Math.max(bottomLevelHeuristic,DataReadyHeuristicStart()), (graph.getTotalWeight() + idleTime)/numProcessors);
     }
 
-    public short getCost(Graph graph, int numProcessors) {
-        return (short) (getBackwardsCost(graph, numProcessors) + getFinishTime());
+    public int getCost(Graph graph, int numProcessors) {
+        long phaseStart = PhaseTimer.start();
+        int cost = getBackwardsCost(graph, numProcessors) + getFinishTime();
+        PhaseTimer.stop(PhaseTimer.Phase.COST, phaseStart);
+        return cost;
     }
 
-    public short getFinishTime() {
-        short max = 0;
+    public int getFinishTime() {
+        int max = 0;
         for (int i = 0; i < processorFinishTimes.length; i++) {
             if (max < processorFinishTimes[i]) {
                 max = processorFinishTimes[i];
@@ -169,13 +225,13 @@ class Schedule {
         expanded = true;
     }
 
-    private short getdataReadyTime(Task task, byte processor) {
-        short maxDrt = 0;
+    private int getdataReadyTime(Task task, byte processor) {
+        int maxDrt = 0;
         for (Task parentTask : task.getParents()) {
             TaskVariant parentState = getTaskState(parentTask);
-            short drt = parentState.getFinishTime();
+            int drt = parentState.getFinishTime();
             if (parentState.getProcessor() != processor) {
-                drt = (short)(drt + task.getParentCommunicationTime(parentTask));
+                drt = drt + task.getParentCommunicationTime(parentTask);
             }
             if (drt > maxDrt) {
                 maxDrt = drt;
@@ -184,10 +240,10 @@ class Schedule {
         return maxDrt;
     }
 
-    private short getMinDataReadyTime(Task task) {
-        short minDRT = Short.MAX_VALUE;
+    private int getMinDataReadyTime(Task task) {
+        int minDRT = Integer.MAX_VALUE;
         for (byte processor=0; processor < processorFinishTimes.length;processor++) {
-            short maxDrt = getdataReadyTime(task, processor);
+            int maxDrt = getdataReadyTime(task, processor);
             if (maxDrt < minDRT) {
                 minDRT = maxDrt;
             }
@@ -195,10 +251,10 @@ class Schedule {
         return minDRT;
     }
 
-    private short DataReadyHeuristicStart() {
-        short max = 0;
-        for (Entry<Task,Short> entry : getSchedulableTasks().entrySet()) {
-            short heuristicValue = (short)(entry.getKey().getBottomLevel() + entry.getValue());
+    private int DataReadyHeuristicStart() {
+        int max = 0;
+        for (Entry<Task,Integer> entry : getSchedulableTasks().entrySet()) {
+            int heuristicValue = entry.getKey().getBottomLevel() + entry.getValue();
             if (heuristicValue > max) {
                 max = heuristicValue;
             }
@@ -0,0 +1,48 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes a scheduled graph in one output format. Writers stream their
+ * output, so the whole result is never held in memory as a string.
+ */
+public interface ScheduleWriter {
+
+    /**
+     * @return the file extension of this format, including the dot
+     */
+    String getExtension();
+
+    /**
+     * Writes the graph and its schedule. The stream is flushed but left open.
+     * @param graphName the name of the output graph.
+     * @param tasks every task of the graph.
+     * @param edges every edge of the graph.
+     * @param schedule the scheduled state of each scheduled task.
+     * @param out where the output is written.
+     */
+    void write(String graphName, Collection<Task> tasks, Collection<Edge> edges,
+               Map<Task, TaskVariant> schedule, OutputStream out) throws IOException;
+
+    /**
+     * Finds the writer for a format name.
+     * @param format one of dot, json, csv or bin.
+     * @return the writer for the format.
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    static ScheduleWriter forFormat(String format) {
+        switch (format) {
+            case ("dot"):
+                return new DotScheduleWriter();
+            case ("json"):
+                return new JsonScheduleWriter();
+            case ("csv"):
+                return new CsvScheduleWriter();
+            case ("bin"):
+                return new BinaryScheduleWriter();
+            default:
+                throw new IllegalArgumentException("Please enter an output format of dot, json, csv or bin.");
+        }
+    }
+}
@@ -0,0 +1,318 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A resident scheduler that keeps one JVM (and its JIT and caches) warm and
+ * solves graphs sent to it over stdin or a local TCP socket.
+ *
+ * The protocol is line based. A client sends
+ *   SOLVE id P [timeoutMs]
+ *   ...dot description...
+ *   END
+ * and gets back either "OK id finishTime" followed by the output graph and a
+ * line "END", or one of "TIMEOUT id", "CANCELLED id" and "ERROR id message".
+ * "CANCEL id" stops a running request and "QUIT" closes the connection.
+ * Every request from every client runs on one shared, bounded worker pool,
+ * so the number of searches held in memory at once is capped.
+ */
+public class SchedulerServer {
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+    private static final int MAX_REQUEST_LINES = 1000000;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService timeouts;
+
+    /**
+     * @param threadCount the number of requests solved at the same time.
+     * @param queueSize the number of requests allowed to wait for a worker.
+     */
+    public SchedulerServer(int threadCount, int queueSize) {
+        this.workers = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize));
+        this.timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Entry point for "--server PORT|- [-p N] [--metrics FILE]".
+     * A port of "-" serves a single client over stdin and stdout.
+     * @param args the command line arguments, starting with --server.
+     */
+    public static void run(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Please enter a port, or - for stdin, after --server.");
+        }
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-p") && i + 1 < args.length) {
+                try {
+                    threadCount = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    throw new NumberFormatException("Please enter an integer for number of cores");
+                }
+            } else if (args[i].equals("--metrics") && i + 1 < args.length) {
+                SearchMonitor.startTextfileExport(args[++i], SearchMonitor.DEFAULT_EXPORT_PERIOD);
+            } else {
+                throw new IllegalArgumentException("Unknown server option " + args[i]);
+            }
+        }
+
+        SchedulerServer server = new SchedulerServer(threadCount, DEFAULT_QUEUE_SIZE);
+        if (args[1].equals("-")) {
+            server.serve(System.in, System.out);
+        } else {
+            server.listen(Integer.parseInt(args[1]));
+        }
+        server.shutdown();
+    }
+
+    /**
+     * Accepts clients on the loopback interface until the process is stopped.
+     * @param port the local port to listen on.
+     */
+    public void listen(int port) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Listening on " + serverSocket.getLocalSocketAddress());
+            while (true) {
+                Socket socket = serverSocket.accept();
+                Thread client = new Thread(() -> {
+                    try (Socket connection = socket) {
+                        serve(connection.getInputStream(), connection.getOutputStream());
+                    } catch (IOException e) {
+                        System.out.println("Client error: " + e.getMessage());
+                    }
+                });
+                client.setDaemon(true);
+                client.start();
+            }
+        }
+    }
+
+    /**
+     * Serves one client until it quits or closes its input, then waits for
+     * its outstanding requests. Requests are cancelled if their result can
+     * no longer be written back.
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        Connection connection = new Connection(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] command = line.trim().split("\\s+");
+                switch (command[0]) {
+                    case ("SOLVE"):
+                        readRequest(command, reader, connection);
+                        break;
+                    case ("CANCEL"):
+                        if (command.length > 1) {
+                            connection.cancel(command[1]);
+                        }
+                        break;
+                    case ("QUIT"):
+                        return;
+                    case (""):
+                        break;
+                    default:
+                        connection.send("ERROR - unknown command " + command[0] + "\n");
+                }
+            }
+        } finally {
+            connection.awaitIdle();
+        }
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        timeouts.shutdownNow();
+    }
+
+    private void readRequest(String[] command, BufferedReader reader, Connection connection) throws IOException {
+        StringBuilder dot = new StringBuilder();
+        String line;
+        int lineCount = 0;
+        while ((line = reader.readLine()) != null && !line.equals("END")) {
+            if (++lineCount <= MAX_REQUEST_LINES) {
+                dot.append(line).append('\n');
+            }
+        }
+        String id = command.length > 1 ? command[1] : "-";
+        if (command.length < 3 || lineCount > MAX_REQUEST_LINES) {
+            connection.send("ERROR " + id + " expected SOLVE id P [timeoutMs] and at most "
+                    + MAX_REQUEST_LINES + " lines\n");
+            return;
+        }
+        int processorCount;
+        long timeout;
+        try {
+            processorCount = Integer.parseInt(command[2]);
+            timeout = command.length > 3 ? Long.parseLong(command[3]) : 0;
+        } catch (NumberFormatException e) {
+            connection.send("ERROR " + id + " " + e.getMessage() + "\n");
+            return;
+        }
+        if (processorCount < 1 || processorCount > TreeSearch.MAX_PROCESSORS) {
+            connection.send("ERROR " + id + " invalid number of processors\n");
+            return;
+        }
+
+        Request request = new Request(id, processorCount, dot.toString());
+        if (!connection.start(request)) {
+            connection.send("ERROR " + id + " request already running\n");
+            return;
+        }
+        try {
+            workers.execute(() -> solve(request, connection));
+        } catch (RejectedExecutionException e) {
+            connection.finish(request);
+            connection.send("ERROR " + id + " server busy\n");
+            return;
+        }
+        if (timeout > 0) {
+            request.timeout = timeouts.schedule(() -> request.cancel(true), timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void solve(Request request, Connection connection) {
+        try {
+            if (request.isCancelled()) {
+                connection.send((request.timedOut ? "TIMEOUT " : "CANCELLED ") + request.id + "\n");
+                return;
+            }
+            Graph graph = new Graph(new ByteArrayInputStream(request.dot.getBytes(StandardCharsets.UTF_8)),
+                    request.id + "-output.dot");
+            TreeSearch search = new TreeSearch(graph, request.processorCount, false);
+            request.search = search;
+            if (request.isCancelled()) {
+                search.cancel();
+            }
+            Node node = search.aStar();
+            if (node == null) {
+                connection.send((request.timedOut ? "TIMEOUT " : "CANCELLED ") + request.id + "\n");
+                return;
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            graph.generateOutputGraph(node.getSchedule().getScheduledTasks().values(), output);
+            connection.send("OK " + request.id + " " + node.getSchedule().getFinishTime() + "\n"
+                    + output.toString(StandardCharsets.UTF_8) + "\nEND\n");
+        } catch (RuntimeException | IOException e) {
+            connection.send("ERROR " + request.id + " " + e + "\n");
+        } finally {
+            if (request.timeout != null) {
+                request.timeout.cancel(false);
+            }
+            connection.finish(request);
+        }
+    }
+
+    /**
+     * A single SOLVE request and the search working on it.
+     */
+    private static class Request {
+        private final String id;
+        private final int processorCount;
+        private final String dot;
+        private volatile TreeSearch search;
+        private volatile boolean cancelled = false;
+        private volatile boolean timedOut = false;
+        private volatile ScheduledFuture<?> timeout;
+
+        Request(String id, int processorCount, String dot) {
+            this.id = id;
+            this.processorCount = processorCount;
+            this.dot = dot;
+        }
+
+        void cancel(boolean dueToTimeout) {
+            timedOut = dueToTimeout;
+            cancelled = true;
+            TreeSearch running = search;
+            if (running != null) {
+                running.cancel();
+            }
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * The requests and output of one client.
+     */
+    private static class Connection {
+        private final Writer writer;
+        private final Map<String, Request> running = new ConcurrentHashMap<>();
+
+        Connection(Writer writer) {
+            this.writer = writer;
+        }
+
+        boolean start(Request request) {
+            return running.putIfAbsent(request.id, request) == null;
+        }
+
+        synchronized void finish(Request request) {
+            running.remove(request.id, request);
+            notifyAll();
+        }
+
+        synchronized void awaitIdle() {
+            while (!running.isEmpty()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    cancelAll();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        void cancel(String id) {
+            Request request = running.get(id);
+            if (request != null) {
+                request.cancel(false);
+            }
+        }
+
+        void cancelAll() {
+            for (Request request : running.values()) {
+                request.cancel(false);
+            }
+        }
+
+        synchronized void send(String message) {
+            try {
+                writer.write(message);
+                writer.flush();
+            } catch (IOException e) {
+                cancelAll();
+            }
+        }
+    }
+}
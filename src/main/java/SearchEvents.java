@@ -0,0 +1,174 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Java Flight Recorder events for the internals of TreeSearch, so a running
+ * scheduler can be profiled with "jcmd PID JFR.start" instead of the visualiser.
+ *
+ * Every running search is sampled once a second, every 64th node expansion
+ * is timed and recorded if it takes longer than the threshold (1 ms by
+ * default), and an event is recorded each time the incumbent improves.
+ * When no recording is running, each of these costs a single check, and
+ * Flight Recorder is not started at all until a recording is.
+ */
+public class SearchEvents {
+    private static final int EXPANSION_SAMPLE_INTERVAL = 64;
+
+    private static final Map<TreeSearch, long[]> lastSamples = new HashMap<>();
+
+    // Registering the events starts Flight Recorder, which takes longer than
+    // scheduling a small graph, so it waits until a recording is started.
+    private static volatile boolean recorderInitialized = false;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                FlightRecorder.addPeriodicEvent(Sample.class, SearchEvents::emitSamples);
+                SearchEvents.recorderInitialized = true;
+            }
+        });
+    }
+
+    @Name("scheduler.SearchSample")
+    @Label("Search Sample")
+    @Category({"Scheduler", "Search"})
+    @Description("The progress of a running search")
+    @Period("1 s")
+    @StackTrace(false)
+    static class Sample extends Event {
+        @Label("Search Id")
+        int searchId;
+        @Label("Open List Size")
+        int openListSize;
+        @Label("Closed Set Size")
+        int closedSetSize;
+        @Label("Nodes Expanded")
+        long nodesExpanded;
+        @Label("Nodes Per Second")
+        double nodesPerSecond;
+        @Label("Best F Bound")
+        @Description("The cost of the node most recently taken from the open list")
+        int fBound;
+        @Label("Incumbent")
+        @Description("The cost of the best complete schedule found so far, or -1")
+        int incumbent;
+    }
+
+    @Name("scheduler.NodeExpansion")
+    @Label("Node Expansion")
+    @Category({"Scheduler", "Search"})
+    @Description("A sampled expansion of a node, recorded when slower than the threshold")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static class Expansion extends Event {
+        @Label("Search Id")
+        int searchId;
+        @Label("Scheduled Tasks")
+        int scheduledTasks;
+        @Label("Successors")
+        int successors;
+        @Label("Cost")
+        int cost;
+    }
+
+    @Name("scheduler.IncumbentImproved")
+    @Label("Incumbent Improved")
+    @Category({"Scheduler", "Search"})
+    @Description("A complete schedule better than any found before")
+    @StackTrace(false)
+    static class IncumbentImproved extends Event {
+        @Label("Search Id")
+        int searchId;
+        @Label("Cost")
+        int cost;
+        @Label("Finish Time")
+        int finishTime;
+        @Label("Nodes Expanded")
+        long nodesExpanded;
+    }
+
+    private static void emitSamples() {
+        Collection<TreeSearch> searches = SearchMonitor.getRunningSearches();
+        lastSamples.keySet().retainAll(searches);
+        for (TreeSearch search : searches) {
+            long now = System.nanoTime();
+            long nodes = search.getExpandedNodesCount();
+            // the nodes expanded and time of the previous sample
+            long[] last = lastSamples.computeIfAbsent(search,
+                    key -> new long[] {0, now - search.getElapsedMillis() * 1000000});
+
+            Sample sample = new Sample();
+            sample.searchId = search.getSearchId();
+            sample.openListSize = search.getOpenListSize();
+            sample.closedSetSize = search.getClosedSetSize();
+            sample.nodesExpanded = nodes;
+            sample.nodesPerSecond = (nodes - last[0]) * 1e9 / Math.max(1, now - last[1]);
+            sample.fBound = search.getCurrentBound();
+            Node incumbent = search.getEncumbent();
+            sample.incumbent = incumbent.getSchedule() == null ? -1 : incumbent.getCost();
+            sample.commit();
+
+            last[0] = nodes;
+            last[1] = now;
+        }
+    }
+
+    /**
+     * Starts timing an expansion if it is one of the sampled ones and
+     * expansions are being recorded.
+     * @param expansionCount the number of expansions so far.
+     * @return the started event, or null if this expansion is not timed
+     */
+    static Expansion startExpansion(int expansionCount) {
+        if (expansionCount % EXPANSION_SAMPLE_INTERVAL != 0 || !recorderInitialized) {
+            return null;
+        }
+        Expansion event = new Expansion();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endExpansion(Expansion event, int searchId, Node node, int successors) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.searchId = searchId;
+            event.scheduledTasks = node.getSchedule().getScheduledTasks().size();
+            event.successors = successors;
+            event.cost = node.getCost();
+            event.commit();
+        }
+    }
+
+    static void incumbentImproved(int searchId, Node incumbent, long nodesExpanded) {
+        if (!recorderInitialized) {
+            return;
+        }
+        IncumbentImproved event = new IncumbentImproved();
+        if (event.isEnabled()) {
+            event.searchId = searchId;
+            event.cost = incumbent.getCost();
+            event.finishTime = incumbent.getSchedule().getFinishTime();
+            event.nodesExpanded = nodesExpanded;
+            event.commit();
+        }
+    }
+}
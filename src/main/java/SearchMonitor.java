@@ -0,0 +1,266 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Keeps track of the running searches and exposes their progress without
+ * the visualiser: as a JMX MBean, and optionally as a metrics file in the
+ * Prometheus text format for a textfile collector to scrape.
+ *
+ * Everything here only reads the state of the searches, from the JMX or
+ * exporter thread, so the search threads do no extra work for it.
+ */
+public class SearchMonitor implements SearchMonitorMBean {
+    public static final String OBJECT_NAME = "Scheduler:type=SearchMonitor";
+    public static final long DEFAULT_EXPORT_PERIOD = 5000;
+
+    private static final SearchMonitor instance = new SearchMonitor();
+    private static final Set<TreeSearch> running = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger nextSearchId = new AtomicInteger();
+    private static final AtomicLong completedSearches = new AtomicLong();
+    private static final AtomicLong completedNodes = new AtomicLong();
+    private static volatile TreeSearch latest;
+    private static volatile boolean registered = false;
+    // held while a search moves from running to completed, so the node count never goes down
+    private static final Object countLock = new Object();
+
+    // each reader of the rate keeps its own last sample, so they do not reset each other's
+    private final RateSampler jmxRate = new RateSampler();
+    private final RateSampler exportRate = new RateSampler();
+
+    /**
+     * The rate of expansion between one reading and the next.
+     */
+    private static class RateSampler {
+        private long lastNodes = 0;
+        private long lastTime = System.nanoTime();
+
+        synchronized double sample(long nodes) {
+            long now = System.nanoTime();
+            double rate = (nodes - lastNodes) * 1e9 / Math.max(1, now - lastTime);
+            lastNodes = nodes;
+            lastTime = now;
+            return rate;
+        }
+    }
+
+    /**
+     * @return a new id for a search, used in its events
+     */
+    static int nextSearchId() {
+        return nextSearchId.incrementAndGet();
+    }
+
+    /**
+     * Registers a search as running, and the MBean the first time. Starting
+     * the platform MBean server takes longer than scheduling a small graph,
+     * so the MBean is registered on a background thread.
+     */
+    static void searchStarted(TreeSearch search) {
+        if (!registered) {
+            registerMBean();
+        }
+        running.add(search);
+        latest = search;
+    }
+
+    static void searchFinished(TreeSearch search) {
+        synchronized (countLock) {
+            if (running.contains(search)) {
+                // counted as completed before it stops being counted as running
+                completedSearches.incrementAndGet();
+                completedNodes.addAndGet(search.getExpandedNodesCount());
+                running.remove(search);
+            }
+        }
+    }
+
+    /**
+     * @return the searches that are running now
+     */
+    static Collection<TreeSearch> getRunningSearches() {
+        return running;
+    }
+
+    /**
+     * @return the search started most recently, which may have finished, or null
+     */
+    static TreeSearch getLatestSearch() {
+        return latest;
+    }
+
+    public static SearchMonitor getInstance() {
+        return instance;
+    }
+
+    private static synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        Thread registration = new Thread(() -> {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                System.out.println("Could not register the search monitor: " + e.getMessage());
+            }
+        }, "search-monitor-registration");
+        registration.setDaemon(true);
+        registration.start();
+    }
+
+    @Override
+    public int getSearchesRunning() {
+        return running.size();
+    }
+
+    @Override
+    public long getSearchesCompleted() {
+        return completedSearches.get();
+    }
+
+    @Override
+    public long getNodesExpanded() {
+        synchronized (countLock) {
+            long nodes = completedNodes.get();
+            for (TreeSearch search : running) {
+                nodes += search.getExpandedNodesCount();
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * @return the rate of expansion since this was last read over JMX
+     */
+    @Override
+    public double getNodesPerSecond() {
+        return jmxRate.sample(getNodesExpanded());
+    }
+
+    @Override
+    public long getOpenListSize() {
+        long size = 0;
+        for (TreeSearch search : running) {
+            size += search.getOpenListSize();
+        }
+        return size;
+    }
+
+    @Override
+    public long getClosedSetSize() {
+        long size = 0;
+        for (TreeSearch search : running) {
+            size += search.getClosedSetSize();
+        }
+        return size;
+    }
+
+    @Override
+    public int getBound() {
+        TreeSearch search = latest;
+        return search == null ? -1 : search.getCurrentBound();
+    }
+
+    @Override
+    public int getIncumbent() {
+        TreeSearch search = latest;
+        if (search == null || search.getEncumbent().getSchedule() == null) {
+            return -1;
+        }
+        return search.getEncumbent().getSchedule().getFinishTime();
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        TreeSearch search = latest;
+        return search == null ? 0 : search.getElapsedMillis();
+    }
+
+    /**
+     * Writes the metrics to a file every period, on a daemon thread. Each
+     * write goes to a temporary file that is then renamed over the metrics
+     * file, so a scraper never reads a partly written file.
+     * @param metricsFile the file to write, e.g. scheduler.prom in the collector's directory.
+     * @param periodMillis how often the file is written.
+     */
+    public static void startTextfileExport(String metricsFile, long periodMillis) {
+        Path target = Paths.get(metricsFile).toAbsolutePath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        ScheduledExecutorService exporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        exporter.scheduleAtFixedRate(() -> writeMetricsFile(temporary, target), 0, periodMillis,
+                TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // a last write so that the final state of a short run is kept
+            exporter.shutdown();
+            writeMetricsFile(temporary, target);
+        }));
+    }
+
+    private static synchronized void writeMetricsFile(Path temporary, Path target) {
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                instance.writeMetrics(writer);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Could not write metrics to " + target + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format.
+     * @param writer where the metrics are written.
+     */
+    public void writeMetrics(Writer writer) throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        metric(writer, "scheduler_searches_running", "gauge", "Searches currently running.", getSearchesRunning());
+        metric(writer, "scheduler_searches_completed_total", "counter", "Searches finished.", getSearchesCompleted());
+        metric(writer, "scheduler_nodes_expanded_total", "counter", "Nodes expanded by all searches.",
+                getNodesExpanded());
+        metric(writer, "scheduler_nodes_per_second", "gauge", "Nodes expanded per second since the last export.",
+                exportRate.sample(getNodesExpanded()));
+        metric(writer, "scheduler_open_list_size", "gauge", "Nodes in the open lists of running searches.",
+                getOpenListSize());
+        metric(writer, "scheduler_closed_set_size", "gauge", "Signatures in the closed sets of running searches.",
+                getClosedSetSize());
+        metric(writer, "scheduler_bound", "gauge", "Cost of the node last taken from the open list.", getBound());
+        metric(writer, "scheduler_incumbent_finish_time", "gauge",
+                "Finish time of the best complete schedule, or -1.", getIncumbent());
+        metric(writer, "scheduler_search_elapsed_seconds", "gauge", "Run time of the latest search.",
+                getElapsedMillis() / 1000.0);
+        metric(writer, "scheduler_heap_used_bytes", "gauge", "Heap in use.",
+                runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    private static void metric(Writer writer, String name, String type, String help, double value)
+            throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            writer.write(name + " " + (long) value + "\n");
+        } else {
+            writer.write(name + " " + String.format(Locale.ROOT, "%.3f", value) + "\n");
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * The management interface of SearchMonitor, registered as
+ * "Scheduler:type=SearchMonitor". Sizes and counters are summed over all
+ * running searches, while the bound, incumbent and elapsed time are those
+ * of the most recently started search.
+ */
+public interface SearchMonitorMBean {
+    int getSearchesRunning();
+
+    long getSearchesCompleted();
+
+    long getNodesExpanded();
+
+    double getNodesPerSecond();
+
+    long getOpenListSize();
+
+    long getClosedSetSize();
+
+    int getBound();
+
+    int getIncumbent();
+
+    long getElapsedMillis();
+}
@@ -0,0 +1,76 @@
+/**
+ * An immutable picture of a running search, published by TreeSearch for the
+ * visualiser. It is built on the search thread from a schedule that no longer
+ * changes, and handed over through a single volatile reference, so the
+ * reader never sees a schedule while it is being modified.
+ */
+public final class SearchSnapshot {
+    private final TaskVariant[] scheduledTasks;
+    private final int finishTime;
+    private final int bound;
+    private final int expandedNodes;
+    private final int openListSize;
+    private final int incumbent;
+    private final long elapsedMillis;
+    private final boolean finished;
+
+    /**
+     * @param schedule the best schedule of the search at this moment.
+     * @param bound the cost of the node the schedule belongs to.
+     * @param expandedNodes the number of nodes expanded so far.
+     * @param openListSize the number of nodes in the open list.
+     * @param incumbent the finish time of the best complete schedule so far, or -1.
+     * @param elapsedMillis the run time of the search so far.
+     * @param finished true if the schedule is the final one.
+     */
+    SearchSnapshot(Schedule schedule, int bound, int expandedNodes, int openListSize, int incumbent,
+                   long elapsedMillis, boolean finished) {
+        this.scheduledTasks = schedule == null ? new TaskVariant[0]
+                : schedule.scheduleOrder.toArray(new TaskVariant[0]);
+        this.finishTime = schedule == null ? 0 : schedule.getFinishTime();
+        this.bound = bound;
+        this.expandedNodes = expandedNodes;
+        this.openListSize = openListSize;
+        this.incumbent = incumbent;
+        this.elapsedMillis = elapsedMillis;
+        this.finished = finished;
+    }
+
+    /**
+     * @return the scheduled tasks, ordered by id. The array must not be modified.
+     */
+    public TaskVariant[] getScheduledTasks() {
+        return scheduledTasks;
+    }
+
+    public int getFinishTime() {
+        return finishTime;
+    }
+
+    public int getBound() {
+        return bound;
+    }
+
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public int getOpenListSize() {
+        return openListSize;
+    }
+
+    /**
+     * @return the finish time of the best complete schedule so far, or -1 if there is none
+     */
+    public int getIncumbent() {
+        return incumbent;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.function.Supplier;
+
+/**
+ * A window that shows a running search, such as the JavaFX visualiser.
+ * Views are loaded by class name, so the search never links against a UI
+ * toolkit and headless builds can leave the views and their libraries out.
+ */
+public interface SearchView {
+    String VISUALISER = "VisualiserView";
+
+    /**
+     * Opens the view and returns once it is ready to show snapshots.
+     * @param processorCount the number of processors the graph is scheduled on.
+     * @param taskCount the number of tasks of the graph.
+     */
+    void open(int processorCount, int taskCount);
+
+    /**
+     * @param snapshotSource gives the latest snapshot of the search, called from the view's own thread.
+     */
+    void setSnapshotSource(Supplier<SearchSnapshot> snapshotSource);
+
+    /**
+     * Loads a view by class name.
+     * @param className the name of a class implementing SearchView with a public no-argument constructor.
+     * @return a new instance of the view
+     * @throws IllegalArgumentException if the view, or the toolkit it needs, is not in this build
+     */
+    static SearchView load(String className) {
+        try {
+            return (SearchView) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalArgumentException("The visualiser is not available in this build, run without -v.", e);
+        }
+    }
+}
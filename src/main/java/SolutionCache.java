@@ -0,0 +1,229 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A persistent cache of solved schedules, keyed by a canonical hash of the
+ * graph and the processor count.
+ *
+ * The cache is kept on disk as an append-only log. A line "S hash placements"
+ * stores a schedule and a line "H hash" records a hit, so replaying the log
+ * rebuilds both the entries and their least recently used order. Once the log
+ * grows past twice the capacity it is compacted down to the live entries.
+ */
+public class SolutionCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final String STORE = "S";
+    private static final String HIT = "H";
+
+    private final File file;
+    private final int capacity;
+    private final LinkedHashMap<String, String> entries;
+    private int logLength = 0;
+
+    /**
+     * Opens the cache stored in a file, creating it on the first store.
+     * @param fileName the file holding the cache log.
+     * @param capacity the maximum number of schedules kept.
+     */
+    public SolutionCache(String fileName, int capacity) {
+        this.file = new File(fileName);
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > SolutionCache.this.capacity;
+            }
+        };
+        load();
+    }
+
+    public SolutionCache(String fileName) {
+        this(fileName, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Computes a canonical hash of a graph and a processor count.
+     * Tasks and edges are visited in id order so the hash does not depend on
+     * the order of the statements in the dot file.
+     * @param graph the graph to be scheduled.
+     * @param processorCount the number of processors.
+     * @return the hash as a hex string.
+     */
+    public static String hash(Graph graph, int processorCount) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder canonical = new StringBuilder();
+        canonical.append(processorCount).append('\n');
+        for (Task task : sortedTasks(graph)) {
+            canonical.append(task.getId().length()).append(':').append(task.getId())
+                    .append('=').append(task.getWeight());
+            ArrayList<Edge> children = new ArrayList<>(task.getChildren());
+            children.sort(Comparator.comparing(edge -> edge.getChild().getId()));
+            for (Edge edge : children) {
+                canonical.append(' ').append(edge.getChild().getId().length()).append(':')
+                        .append(edge.getChild().getId()).append('=').append(edge.getCommunicationTime());
+            }
+            canonical.append('\n');
+        }
+        byte[] hash = digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Looks up a cached schedule.
+     * @param key the hash of the graph and processor count.
+     * @param graph the graph the schedule belongs to.
+     * @return the scheduled tasks, or null on a miss.
+     */
+    public synchronized List<TaskVariant> lookup(String key, Graph graph) {
+        String placements = entries.get(key);
+        if (placements == null) {
+            return null;
+        }
+        List<Task> tasks = sortedTasks(graph);
+        String[] fields = placements.split(" ");
+        if (fields.length != tasks.size()) {
+            entries.remove(key);
+            return null;
+        }
+        List<TaskVariant> scheduled = new ArrayList<>(tasks.size());
+        for (int i = 0; i < fields.length; i++) {
+            int at = fields[i].indexOf('@');
+            int startTime;
+            byte processor;
+            try {
+                startTime = Integer.parseInt(fields[i].substring(0, at));
+                processor = Byte.parseByte(fields[i].substring(at + 1));
+            } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                startTime = -1;
+                processor = -1;
+            }
+            if (startTime < 0 || processor < 0) {
+                // a corrupt entry, so treat it as a miss
+                entries.remove(key);
+                return null;
+            }
+            scheduled.add(new TaskVariant(tasks.get(i), startTime, processor));
+        }
+        append(HIT + " " + key);
+        return scheduled;
+    }
+
+    /**
+     * Stores a solved schedule, evicting the least recently used entry if
+     * the cache is full.
+     * @param key the hash of the graph and processor count.
+     * @param scheduled the scheduled tasks of the solution.
+     */
+    public synchronized void store(String key, Collection<TaskVariant> scheduled) {
+        HashMap<Task, TaskVariant> byTask = new HashMap<>();
+        for (TaskVariant variant : scheduled) {
+            byTask.put(variant.getTask(), variant);
+        }
+        ArrayList<Task> tasks = new ArrayList<>(byTask.keySet());
+        tasks.sort(Comparator.comparing(Task::getId));
+        StringBuilder placements = new StringBuilder();
+        for (Task task : tasks) {
+            TaskVariant variant = byTask.get(task);
+            if (placements.length() > 0) {
+                placements.append(' ');
+            }
+            placements.append(variant.getStartTime()).append('@').append(variant.getProcessor());
+        }
+        entries.put(key, placements.toString());
+        append(STORE + " " + key + " " + placements);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static List<Task> sortedTasks(Graph graph) {
+        ArrayList<Task> tasks = new ArrayList<>(graph.getTasks());
+        tasks.sort(Comparator.comparing(Task::getId));
+        return tasks;
+    }
+
+    /**
+     * Replays the log to rebuild the entries and their access order.
+     */
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logLength++;
+                String[] fields = line.split(" ", 3);
+                if (fields[0].equals(STORE) && fields.length == 3) {
+                    entries.put(fields[1], fields[2]);
+                } else if (fields[0].equals(HIT) && fields.length == 2) {
+                    entries.get(fields[1]);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Could not read solution cache " + file + ".");
+            entries.clear();
+        }
+    }
+
+    private void append(String record) {
+        // the entries already reflect this record, so compaction covers it
+        if (logLength >= capacity * 2 && compact()) {
+            return;
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
+            writer.write(record);
+            writer.newLine();
+            logLength++;
+        } catch (IOException e) {
+            System.out.println("Could not write solution cache " + file + ".");
+        }
+    }
+
+    /**
+     * Rewrites the log with only the live entries, least recently used first.
+     */
+    private boolean compact() {
+        File temp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writer.write(STORE + " " + entry.getKey() + " " + entry.getValue());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.out.println("Could not compact solution cache " + file + ".");
+            return false;
+        }
+        if ((file.delete() || !file.exists()) && temp.renameTo(file)) {
+            logLength = entries.size();
+            return true;
+        }
+        return false;
+    }
+}
@@ -7,7 +7,7 @@ import java.util.Set;
  * it stores its bottomlevel and weight as well as the list of child edges and map of parent tasks
  */
 public class Task {
-    private final short weight;
+    private final int weight;
     private final String id;
 
     /*
@@ -18,7 +18,7 @@ public class Task {
     // The tasks that this task points towards.
     private final ArrayList<Edge> children;
 
-    private Short bottomLevel;
+    private Integer bottomLevel;
 
 
     /**
@@ -26,7 +26,7 @@ public class Task {
      * @param weight the amount of time needed for the task to finish
      * @param id the character used to identify the task.
      */
-    Task(short weight, String id) {
+    Task(int weight, String id) {
         this.weight = weight;
         this.id = id;
 
@@ -40,7 +40,7 @@ public class Task {
      * Recursively set the bottom level of this task and all children
      * Assumes unset bottom levels are null
      */
-    public Short findBottomLevel() {
+    public Integer findBottomLevel() {
         
         // bottom level may have already been set by a parent task
         // do not recalculate, as bottom level never changes
@@ -49,18 +49,18 @@ public class Task {
         }
         
         // find longest path length
-        short criticalPathTime = 0;
+        int criticalPathTime = 0;
         for (Edge childEdge : getChildren()) {
             Task child = childEdge.getChild();
             // recursively call this function on all children
-            short pathTime = child.findBottomLevel();
+            int pathTime = child.findBottomLevel();
             // update longest path
             if (pathTime > criticalPathTime) {
                 criticalPathTime = pathTime;
             }
         }
 
-        bottomLevel = (short) (criticalPathTime + weight);
+        bottomLevel = criticalPathTime + weight;
         return getBottomLevel();
     }
 
@@ -95,7 +95,7 @@ public class Task {
      * 
      * @return The bottom level of this task
      */
-    Short getBottomLevel() {return bottomLevel;}
+    Integer getBottomLevel() {return bottomLevel;}
 
     /**
      * Gets the weight of the task, which is the
@@ -103,7 +103,7 @@ public class Task {
      * 
      * @return the weight of this task
      */
-    short getWeight() {return weight;}
+    int getWeight() {return weight;}
 
     /**
      * Gets a list of the tasks children, as a list
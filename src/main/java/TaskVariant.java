@@ -3,10 +3,10 @@
  **/
 public class TaskVariant {
     protected Task task;
-    protected short startTime;
+    protected int startTime;
     protected byte processor;
 
-    public TaskVariant(Task task, short startTime, byte processor) {
+    public TaskVariant(Task task, int startTime, byte processor) {
         this.task = task;
         this.startTime = startTime;
         this.processor = processor;
@@ -23,12 +23,12 @@ public class TaskVariant {
         this.processor = 0;
     }
 
-    public short getStartTime() {
+    public int getStartTime() {
         return this.startTime;
     }
 
-    public short getFinishTime() {
-        return (short) (this.startTime + task.getWeight());
+    public int getFinishTime() {
+        return this.startTime + task.getWeight();
     }
 
     public byte getProcessor() {
@@ -1,6 +1,10 @@
-import javafx.application.Platform;
-
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.PriorityBlockingQueue;
 
 /**
@@ -12,64 +16,101 @@ public class TreeSearch {
     private Graph graph;
     private int processorCount;
     private boolean visualize;
-
-    private Visualiser visualiser;
+    // true when the visualiser or the progress server shows the snapshots
+    private boolean publishSnapshots;
 
     private Node incumbent = new Node();
     private int activeThreads = 0;
 
-    private long startTime;
     private int expandedNodesCount;
 
-    private Schedule currentSchedule;
-    private Timer updateTimer;
+    // processor ids are bytes, and node signatures relabel the processors by first use
+    public static final int MAX_PROCESSORS = 64;
+
+    // snapshots for the visualiser and progress server, published about once per display frame
+    private static final long SNAPSHOT_INTERVAL_NANOS = 16000000;
+    private static final int MAX_SNAPSHOT_STRIDE = 1 << 16;
+    private volatile SearchSnapshot snapshot;
+    private int snapshotStride = 1;
+    private int snapshotCountdown = 1;
+    private long lastSnapshotNanos = System.nanoTime();
+
+    private volatile boolean cancelled = false;
+
+    // successors whose backwards cost is above this cannot beat a schedule already known
+    private volatile int upperBound = Integer.MAX_VALUE;
+
+    // read by SearchEvents and SearchMonitor while the search runs
+    private volatile int currentBound = 0;
+    private volatile Collection<?> openListView = Collections.emptyList();
+    private volatile Collection<?> closedSetView = Collections.emptyList();
+    private volatile long searchStartNanos = 0;
+    private volatile long searchEndNanos = 0;
+    private int searchId;
 
 
     public TreeSearch(Graph graph, int processorCount, boolean visualize){
         this.graph = graph;
         this.processorCount = processorCount;
         this.visualize = visualize;
+        this.publishSnapshots = visualize || ProgressServer.isStarted();
 
         this.expandedNodesCount = 0;
 
         if (this.visualize) {
-            // Sets up the visualiser.
-            new Thread(() -> {
-                Visualiser.launch(Visualiser.class, "" + processorCount);
-            }).start();
-
-            // Get the visualiser before continuing.
-            while (visualiser == null) {
-                visualiser = Visualiser.getVisualiser();
-            }
+            // Loaded by name so that headless runs never load JavaFX.
+            SearchView visualiser = SearchView.load(SearchView.VISUALISER);
+            visualiser.open(processorCount, graph.getTaskCount());
 
-            // Record the start time.
-            startTime = System.currentTimeMillis();
-
-            // Updates the visualiser every second.
-            updateTimer = new Timer();
-            updateTimer.scheduleAtFixedRate(new TimerTask() {
-                @Override
-                public void run() {
-                    Platform.runLater(() -> visualiser.updateVisualiser(currentSchedule, expandedNodesCount,
-                            Runtime.getRuntime().totalMemory(), Runtime.getRuntime().freeMemory(),
-                            (new Date()).getTime() - startTime));
-                }
-            }, 0, 150);
+            // The visualiser reads the latest snapshot once per frame.
+            visualiser.setSnapshotSource(this::getSnapshot);
+        }
+    }
+
+    /**
+     * @return the latest snapshot published for the visualiser, or null before the first
+     */
+    public SearchSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes a snapshot of the node every snapshotStride calls. The stride
+     * follows the expansion rate so that about one snapshot is made per
+     * SNAPSHOT_INTERVAL_NANOS, leaving a countdown as the only per-node cost.
+     * @param node the node being expanded.
+     */
+    private void offerSnapshot(Node node) {
+        if (--snapshotCountdown > 0) {
+            return;
         }
+        long now = System.nanoTime();
+        long elapsed = Math.max(1, now - lastSnapshotNanos);
+        long target = snapshotStride * SNAPSHOT_INTERVAL_NANOS / elapsed;
+        snapshotStride = (int) Math.max(1, Math.min(MAX_SNAPSHOT_STRIDE, (snapshotStride + target) / 2));
+        snapshotCountdown = snapshotStride;
+        lastSnapshotNanos = now;
+        snapshot = new SearchSnapshot(node.getSchedule(), node.getCost(), expandedNodesCount, getOpenListSize(),
+                getIncumbentFinishTime(), getElapsedMillis(), false);
     }
 
-    private void updateVisualiser() {
-        Platform.runLater(() -> visualiser.updateVisualiser(currentSchedule, expandedNodesCount,
-                Runtime.getRuntime().totalMemory(), Runtime.getRuntime().freeMemory(),
-                (new Date()).getTime() - startTime));
+    /**
+     * Publishes the final snapshot, which the visualiser and progress server show as the result.
+     * @param solution the goal node, or null if the search stopped without one.
+     */
+    private void endVisualiser(Node solution) {
+        Schedule schedule = solution != null ? solution.getSchedule() : null;
+        int bound = solution != null ? solution.getCost() : currentBound;
+        snapshot = new SearchSnapshot(schedule, bound, expandedNodesCount, getOpenListSize(),
+                getIncumbentFinishTime(), getElapsedMillis(), true);
     }
 
-    private void endVisualiser() {
-        updateTimer.cancel();
-        Platform.runLater(() -> visualiser.finish(currentSchedule, expandedNodesCount,
-                Runtime.getRuntime().totalMemory(), Runtime.getRuntime().freeMemory(),
-                (new Date()).getTime() - startTime));
+    /**
+     * @return the finish time of the incumbent, or -1 if no complete schedule was found yet
+     */
+    private int getIncumbentFinishTime() {
+        Schedule schedule = getEncumbent().getSchedule();
+        return schedule == null ? -1 : schedule.getFinishTime();
     }
 
     private synchronized void incrementActiveThreads() {
@@ -82,12 +123,111 @@ public class TreeSearch {
 
     private synchronized void updateEncumbent(Node candidate) {
         incumbent = candidate;
+        SearchEvents.incumbentImproved(searchId, candidate, expandedNodesCount);
     }
 
     public synchronized Node getEncumbent() {
         return incumbent;
     }
 
+    /**
+     * Asks a running search to stop. The search returns null
+     * the next time it takes a node from the open list.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getProcessorCount() {
+        return processorCount;
+    }
+
+    /**
+     * Sets the finish time of a schedule known to exist, such as a heuristic
+     * one. aStar then leaves out successors whose backwards cost is above
+     * it, as they cannot lead to a schedule that finishes by then. It may be
+     * lowered while the search runs.
+     * @param upperBound the finish time of a known schedule.
+     */
+    public void setUpperBound(int upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    /**
+     * The lower bound a search starts from: the smallest backwards cost of
+     * the schedules that only hold one start task. No schedule can finish
+     * before it.
+     * @param graph the graph to schedule.
+     * @param processorCount the number of processors.
+     * @return the lower bound of the finish time.
+     */
+    public static int getRootLowerBound(Graph graph, int processorCount) {
+        int bound = Integer.MAX_VALUE;
+        ArrayList<Task> startTasks = graph.getStartTasks();
+        for (Task startTask : startTasks) {
+            bound = Math.min(bound, new Schedule(startTask, startTasks).getBackwardsCost(graph, processorCount));
+        }
+        return bound;
+    }
+
+    /**
+     * @return the number of nodes expanded so far
+     */
+    public int getExpandedNodesCount() {
+        return expandedNodesCount;
+    }
+
+    /**
+     * @return the cost of the node most recently taken from the open list
+     */
+    public int getCurrentBound() {
+        return currentBound;
+    }
+
+    public int getOpenListSize() {
+        return openListView.size();
+    }
+
+    public int getClosedSetSize() {
+        return closedSetView.size();
+    }
+
+    /**
+     * @return the run time of the search so far, or 0 before it starts
+     */
+    public long getElapsedMillis() {
+        long start = searchStartNanos;
+        long end = searchEndNanos;
+        if (start == 0) {
+            return 0;
+        }
+        return ((end == 0 ? System.nanoTime() : end) - start) / 1000000;
+    }
+
+    public int getSearchId() {
+        return searchId;
+    }
+
+    private void searchStarted(Collection<?> openList, Collection<?> closedSet) {
+        openListView = openList;
+        closedSetView = closedSet;
+        searchStartNanos = System.nanoTime();
+        searchId = SearchMonitor.nextSearchId();
+        SearchMonitor.searchStarted(this);
+    }
+
+    private void searchFinished() {
+        searchEndNanos = System.nanoTime();
+        SearchMonitor.searchFinished(this);
+        // the monitor may keep this search, but not its nodes
+        openListView = Collections.emptyList();
+        closedSetView = Collections.emptyList();
+    }
+
     /**
      * Implementation of the A* algorithm, traversing the tree and creating a
      * viable schedule from it
@@ -97,41 +237,64 @@ public class TreeSearch {
     public Node aStar() {
         PriorityQueue<Node> openList = new PriorityQueue<Node>(new NodeComparator());
         HashSet<String> createdNodes = new HashSet<String>();
-
-        for (Task startTask : graph.getStartTasks()) {
-            Node rootNode = new Node(startTask, graph.getStartTasks(), graph, processorCount);
-            openList.add(rootNode);
-            expandedNodesCount ++;
-        }
-        while (!openList.isEmpty()) {
-            Node node = openList.peek();
-            expandedNodesCount ++;
-
-            if (visualize) {
-                currentSchedule = node.getSchedule();
+        searchStarted(openList, createdNodes);
+        try {
+            for (Task startTask : graph.getStartTasks()) {
+                Node rootNode = new Node(startTask, graph.getStartTasks(), graph, processorCount);
+                openList.add(rootNode);
+                expandedNodesCount ++;
             }
-            if (node.getSchedule().getScheduledTasks().size() == graph.getTasks().size()) {
-                if (visualize) {
-                    endVisualiser();
+            while (!openList.isEmpty()) {
+                if (cancelled) {
+                    break;
+                }
+                long phaseStart = PhaseTimer.start();
+                Node node = openList.peek();
+                PhaseTimer.stop(PhaseTimer.Phase.OPEN_POLL, phaseStart);
+                expandedNodesCount ++;
+                currentBound = node.getCost();
+
+                if (publishSnapshots) {
+                    offerSnapshot(node);
+                }
+                if (node.getSchedule().getScheduledTasks().size() == graph.getTasks().size()) {
+                    updateEncumbent(node);
+                    if (publishSnapshots) {
+                        endVisualiser(node);
+                    }
+                    return node;
                 }
-                return node;
-            }
 
-            ArrayList<Node> successorList = node.getSuccessors(processorCount, graph);
-            for (Node successorNode : successorList) {
-                if (!NodeAlreadyExists(createdNodes, successorNode)) {
-                    openList.add(successorNode);
+                SearchEvents.Expansion expansion = SearchEvents.startExpansion(expandedNodesCount);
+                ArrayList<Node> successorList = node.getSuccessors(processorCount, graph);
+                for (Node successorNode : successorList) {
+                    String signature = successorNode.toString();
+                    phaseStart = PhaseTimer.start();
+                    boolean exists = NodeAlreadyExists(createdNodes, successorNode);
+                    PhaseTimer.stop(PhaseTimer.Phase.DUPLICATE_LOOKUP, phaseStart);
+                    if (!exists && isWithinUpperBound(successorNode)) {
+                        phaseStart = PhaseTimer.start();
+                        openList.add(successorNode);
+                        PhaseTimer.stop(PhaseTimer.Phase.OPEN_INSERT, phaseStart);
+                    }
+                    phaseStart = PhaseTimer.start();
+                    createdNodes.add(signature);
+                    PhaseTimer.stop(PhaseTimer.Phase.DUPLICATE_LOOKUP, phaseStart);
+                }
+                SearchEvents.endExpansion(expansion, searchId, node, successorList.size());
+                if (node.getSchedule().getSchedulableTasks().isEmpty()) {
+                    phaseStart = PhaseTimer.start();
+                    openList.poll();
+                    PhaseTimer.stop(PhaseTimer.Phase.OPEN_POLL, phaseStart);
                 }
-                createdNodes.add(successorNode.toString());
             }
-            if (node.getSchedule().getSchedulableTasks().isEmpty()) {
-                openList.poll();
+            if (publishSnapshots) {
+                endVisualiser(null);
             }
+            return null;
+        } finally {
+            searchFinished();
         }
-        if (visualize) {
-            endVisualiser();
-        }
-        return null;
     }
 
     /**
@@ -141,88 +304,232 @@ public class TreeSearch {
     public Node aStarCentralized(int threadCount) {
         PriorityBlockingQueue<Node> openList = new PriorityBlockingQueue<Node>(100000, new NodeComparator());
         Set<String> createdNodes = Collections.synchronizedSet(new HashSet<String>());
+        searchStarted(openList, createdNodes);
+        try {
+            // Add start tasks
+            for (Task startTask : graph.getStartTasks()) {
+                Node rootNode = new Node(startTask, graph.getStartTasks(), graph, processorCount);
+                openList.add(rootNode);
+                expandedNodesCount ++;
+                createdNodes.add(rootNode.toString());
+            }
 
-        // Add start tasks
-        for (Task startTask : graph.getStartTasks()) {
-            Node rootNode = new Node(startTask, graph.getStartTasks(), graph, processorCount);
-            openList.add(rootNode);
-            expandedNodesCount ++;
-            createdNodes.add(rootNode.toString());
-        }
-
-        activeThreads = threadCount;
-
-        /**
-         * Main A* loop for each thread
-         */
-        Runnable searchLoop = () -> {
-            boolean active = true;
-            while (activeThreads != 0) {
-                // check if there are nodes available for expansion in the central list
-                Node node = openList.poll();
-
-                // mark this thread's activity status
-                if (node == null || node.getCost() >= incumbent.getCost()) {
-                    if (active) {
-                        active = false;
-                        decrementActiveThreads();
+            activeThreads = threadCount;
+
+            /**
+             * Main A* loop for each thread
+             */
+            Runnable searchLoop = () -> {
+                boolean active = true;
+                while (activeThreads != 0 && !cancelled) {
+                    // check if there are nodes available for expansion in the central list
+                    long phaseStart = PhaseTimer.start();
+                    Node node = openList.poll();
+                    PhaseTimer.stop(PhaseTimer.Phase.OPEN_POLL, phaseStart);
+
+                    // mark this thread's activity status
+                    if (node == null || node.getCost() >= incumbent.getCost()) {
+                        if (active) {
+                            active = false;
+                            decrementActiveThreads();
+                        }
+                        continue;
                     }
-                    continue;
-                }
 
-                if (!active) {
-                    active = true;
-                    incrementActiveThreads();
-                }
-
-                // check if goal node
-                if (node.getSchedule().getScheduledTasks().size() == graph.getTasks().size()) {
-                    updateEncumbent(node);
-                }
+                    if (!active) {
+                        active = true;
+                        incrementActiveThreads();
+                    }
+                    currentBound = node.getCost();
 
-                if (visualize) {
-                    currentSchedule = node.getSchedule();
-                }
+                    // check if goal node
+                    if (node.getSchedule().getScheduledTasks().size() == graph.getTasks().size()) {
+                        updateEncumbent(node);
+                    }
 
+                    if (publishSnapshots) {
+                        offerSnapshot(node);
+                    }
 
-                // partial expansion - see Oliver's research
-                for (Node successorNode : node.getSuccessors(processorCount, graph)) {
-                    if (!createdNodes.contains(successorNode.toString())) {
-                        openList.add(successorNode);
+                    // partial expansion - see Oliver's research
+                    SearchEvents.Expansion expansion = SearchEvents.startExpansion(expandedNodesCount);
+                    ArrayList<Node> successorList = node.getSuccessors(processorCount, graph);
+                    for (Node successorNode : successorList) {
+                        String signature = successorNode.toString();
+                        phaseStart = PhaseTimer.start();
+                        boolean exists = createdNodes.contains(signature);
+                        PhaseTimer.stop(PhaseTimer.Phase.DUPLICATE_LOOKUP, phaseStart);
+                        if (!exists) {
+                            phaseStart = PhaseTimer.start();
+                            openList.add(successorNode);
+                            PhaseTimer.stop(PhaseTimer.Phase.OPEN_INSERT, phaseStart);
+                            expandedNodesCount ++;
+                        }
+                        phaseStart = PhaseTimer.start();
+                        createdNodes.add(signature);
+                        PhaseTimer.stop(PhaseTimer.Phase.DUPLICATE_LOOKUP, phaseStart);
+                    }
+                    SearchEvents.endExpansion(expansion, searchId, node, successorList.size());
+                    // if fully expanded, remove the node from the open list
+                    if (!node.getSchedule().getSchedulableTasks().isEmpty()) {
+                        phaseStart = PhaseTimer.start();
+                        openList.add(node);
+                        PhaseTimer.stop(PhaseTimer.Phase.OPEN_INSERT, phaseStart);
                         expandedNodesCount ++;
                     }
-                    createdNodes.add(successorNode.toString());
-                }
-                // if fully expanded, remove the node from the open list
-                if (!node.getSchedule().getSchedulableTasks().isEmpty()) {
-                    openList.add(node);
-                    expandedNodesCount ++;
                 }
-            }
-        };
+            };
 
-        // initialise threads
-        for (int i = 0; i < threadCount-1; i++) {
-            Thread thread = new Thread(searchLoop);
-            thread.start();
+            // initialise threads
+            for (int i = 0; i < threadCount-1; i++) {
+                Thread thread = new Thread(searchLoop);
+                thread.start();
+            }
+            searchLoop.run();
+        } catch (RuntimeException e) {
+            // the other threads would otherwise wait for this one forever
+            cancelled = true;
+            throw e;
+        } finally {
+            searchFinished();
         }
-        searchLoop.run();
 
         // return solution
         Node solution = getEncumbent();
-        if (solution.getCost() == 0) {
+        if (cancelled || solution.getSchedule() == null) {
+            if (publishSnapshots) {
+                endVisualiser(null);
+            }
+            return null;
+        } else if (solution.getCost() == 0) {
             return null;
         } else {
-            currentSchedule = solution.getSchedule();
-
-            if (visualize) {
-                endVisualiser();
+            if (publishSnapshots) {
+                endVisualiser(solution);
             }
 
             return solution;
         }
     }
 
+    /**
+     * Beam search: keeps only the beamWidth nodes with the lowest cost at
+     * each depth, so memory stays within beamWidth times the branching
+     * factor and the run time is predictable, at the price of optimality.
+     *
+     * Every node of a depth is fully expanded, the nodes split between the
+     * threads, and successors with the same signature are kept once. The
+     * best nodes are chosen by cost, then signature, so the schedule found
+     * does not depend on the number of threads, up to the naming of the
+     * processors.
+     * @param beamWidth the number of nodes kept at each depth.
+     * @param threadCount the number of threads expanding each depth.
+     * @return the best complete schedule found, or null if cancelled
+     */
+    public Node beamSearch(int beamWidth, int threadCount) {
+        ArrayList<Node> level = new ArrayList<Node>();
+        searchStarted(level, Collections.emptySet());
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            HashSet<String> roots = new HashSet<String>();
+            for (Task startTask : graph.getStartTasks()) {
+                Node rootNode = new Node(startTask, graph.getStartTasks(), graph, processorCount);
+                if (roots.add(rootNode.toString())) {
+                    level.add(rootNode);
+                }
+            }
+            expandedNodesCount += level.size();
+
+            Node solution = null;
+            while (!level.isEmpty() && !cancelled) {
+                level.sort(BEAM_ORDER);
+                if (level.size() > beamWidth) {
+                    level = new ArrayList<Node>(level.subList(0, beamWidth));
+                }
+                openListView = level;
+                currentBound = level.get(0).getCost();
+                if (publishSnapshots) {
+                    offerSnapshot(level.get(0));
+                }
+
+                if (level.get(0).getSchedule().getScheduledTasks().size() == graph.getTasks().size()) {
+                    for (Node node : level) {
+                        if (solution == null
+                                || node.getSchedule().getFinishTime() < solution.getSchedule().getFinishTime()) {
+                            solution = node;
+                        }
+                    }
+                    break;
+                }
+                level = expandLevel(level, threadCount, pool);
+            }
+
+            if (solution != null) {
+                updateEncumbent(solution);
+            }
+            if (publishSnapshots) {
+                endVisualiser(solution);
+            }
+            return cancelled ? null : solution;
+        } finally {
+            pool.shutdownNow();
+            searchFinished();
+        }
+    }
+
+    /**
+     * Expands every node of a depth on the pool, each thread taking every
+     * threadCount-th node.
+     * @return the successors, with duplicate signatures removed
+     */
+    private ArrayList<Node> expandLevel(ArrayList<Node> level, int threadCount, ExecutorService pool) {
+        Set<String> createdNodes = ConcurrentHashMap.newKeySet();
+        ArrayList<Callable<ArrayList<Node>>> work = new ArrayList<Callable<ArrayList<Node>>>();
+        for (int t = 0; t < threadCount; t++) {
+            int first = t;
+            work.add(() -> {
+                ArrayList<Node> successors = new ArrayList<Node>();
+                for (int i = first; i < level.size(); i += threadCount) {
+                    Node node = level.get(i);
+                    SearchEvents.Expansion expansion = SearchEvents.startExpansion(expandedNodesCount);
+                    ArrayList<Node> successorList = node.getAllSuccessors(processorCount, graph);
+                    for (Node successorNode : successorList) {
+                        long phaseStart = PhaseTimer.start();
+                        boolean added = createdNodes.add(successorNode.toString());
+                        PhaseTimer.stop(PhaseTimer.Phase.DUPLICATE_LOOKUP, phaseStart);
+                        if (added) {
+                            successors.add(successorNode);
+                        }
+                    }
+                    SearchEvents.endExpansion(expansion, searchId, node, successorList.size());
+                }
+                return successors;
+            });
+        }
+
+        ArrayList<Node> nextLevel = new ArrayList<Node>();
+        try {
+            for (Future<ArrayList<Node>> successors : pool.invokeAll(work)) {
+                nextLevel.addAll(successors.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        expandedNodesCount += level.size();
+        return nextLevel;
+    }
+
+    private static final Comparator<Node> BEAM_ORDER =
+            Comparator.comparingInt(Node::getCost).thenComparing(Node::toString);
+
+    private boolean isWithinUpperBound(Node node) {
+        int bound = upperBound;
+        return bound == Integer.MAX_VALUE || node.getSchedule().getBackwardsCost(graph, processorCount) <= bound;
+    }
+
     private boolean NodeAlreadyExists(HashSet<String> createdNodes, Node node) {
         return createdNodes.contains(node.toString());
     }
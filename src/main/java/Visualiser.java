@@ -11,7 +11,12 @@ import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Supplier;
 
+import javafx.animation.AnimationTimer;
 import javafx.animation.FadeTransition;
 import javafx.application.Application;
 import javafx.collections.FXCollections;
@@ -65,8 +70,13 @@ public class Visualiser extends Application{
     private int bigFontSize;
     private int smallFontSize;
 
+    // graphs with more tasks than this are drawn on a canvas instead of as chart nodes
+    private static final int CANVAS_TASK_THRESHOLD = 200;
+
     private GanttChart<Number,String> ganttChart;
+    private CanvasGanttChart canvasGanttChart;
     private XYChart.Series[] processorSchedule;
+    private final HashMap<Task, XYChart.Data<Number,String>> displayedBlocks = new HashMap<>();
     private NumberAxis xAxis;
     private CategoryAxis yAxis;
 
@@ -104,7 +114,10 @@ public class Visualiser extends Application{
     //private StackPane stackPane;
     private AnchorPane anchorPane;
 
-    private Schedule currentSchedule;
+    private SearchSnapshot currentSnapshot;
+    private volatile Supplier<SearchSnapshot> snapshotSource;
+    private AnimationTimer frameTimer;
+    private ProgressCharts progressCharts;
 
     private int processorCount;
 
@@ -149,7 +162,12 @@ public class Visualiser extends Application{
             
 
             setupView(mainPane, width, height);
-            setupGanttChart(Integer.parseInt("" + getParameters().getRaw().get(0)));
+            int taskCount = getParameters().getRaw().size() > 1 ? Integer.parseInt(getParameters().getRaw().get(1)) : 0;
+            if (taskCount > CANVAS_TASK_THRESHOLD) {
+                setupCanvasGanttChart(Integer.parseInt("" + getParameters().getRaw().get(0)));
+            } else {
+                setupGanttChart(Integer.parseInt("" + getParameters().getRaw().get(0)));
+            }
 
             visualiser=this;
 
@@ -165,6 +183,21 @@ public class Visualiser extends Application{
             stage.setScene(scene);
             stage.show();
 
+            progressCharts = new ProgressCharts();
+            progressCharts.show();
+
+            // Take the latest snapshot of the search once per frame.
+            frameTimer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    Supplier<SearchSnapshot> source = snapshotSource;
+                    if (source != null) {
+                        render(source.get());
+                    }
+                }
+            };
+            frameTimer.start();
+
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -377,8 +410,20 @@ public class Visualiser extends Application{
         
     }
 
-    public Schedule getCurrentSchedule(){
-        return currentSchedule;
+    /**
+     * @return the snapshot shown in the gantt chart, or null before the first one
+     */
+    public SearchSnapshot getCurrentSnapshot(){
+        return currentSnapshot;
+    }
+
+    /**
+     * Sets where the visualiser takes its snapshots from. It may be called
+     * from any thread; the snapshots are read on the JavaFX thread.
+     * @param snapshotSource gives the latest snapshot of the search.
+     */
+    public void setSnapshotSource(Supplier<SearchSnapshot> snapshotSource) {
+        this.snapshotSource = snapshotSource;
     }
 
     public void showTaskInfo(){
@@ -406,9 +451,9 @@ public class Visualiser extends Application{
         //taskWeightValue.setVisible(false);
     }
 
-    public void setTaskLabelInfo(Task task, short startTime){
+    public void setTaskLabelInfo(Task task, int startTime){
         taskIDValue.setText(task.getId());
-        taskStartTimeValue.setText(Short.toString(startTime));
+        taskStartTimeValue.setText(Integer.toString(startTime));
         int weight = task.getWeight();
         taskEndTimeValue.setText(Integer.toString(startTime+weight));
         taskWeightValue.setText(Integer.toString(weight));
@@ -454,71 +499,114 @@ public class Visualiser extends Application{
         mainPane.add(ganttChart, 0, 0, 1, 4);
     }
 
-    public void finish(Schedule schedule, int expandedNodesCount, long totalMemory, long freeMemory, long timePassed) {
-        ganttChart.setTitle("Optimal Schedule");
+    private void setupCanvasGanttChart(int processorCount) {
+        this.processorCount = processorCount;
+
+        canvasGanttChart = new CanvasGanttChart(processorCount);
+        canvasGanttChart.setTitle("Schedule Being Considered");
+        canvasGanttChart.setPrefWidth(width*5/6);
+        canvasGanttChart.setPrefHeight(height);
+
+        mainPane.add(canvasGanttChart, 0, 0, 1, 4);
+    }
+
+    private void finish() {
+        frameTimer.stop();
+        if (canvasGanttChart != null) {
+            canvasGanttChart.setTitle("Optimal Schedule");
+        } else {
+            ganttChart.setTitle("Optimal Schedule");
+        }
         runStatusValueLabel.setText("Done");
         runStatusLabel.setStyle("-fx-font-size:  " + bigFontSize + "px;" +
                 "-fx-text-fill: green");
         runStatusValueLabel.setStyle("-fx-font-size: " + smallFontSize + "px;" +
                 "-fx-text-fill: green");
-        updateVisualiser(schedule, expandedNodesCount, totalMemory, freeMemory, timePassed);
     }
 
     /**
-     * The control layer method that updates the view components.
-     * @param expandedNodesCount the number of expanded nodes.
-     * @param timePassed the amount of time passed.
+     * The control layer method that updates the view components,
+     * called on every frame with the latest snapshot of the search.
+     * @param snapshot the latest snapshot, or null if there is none yet.
      */
-    public void updateVisualiser(Schedule schedule, int expandedNodesCount, long totalMemory, long freeMemory, long timePassed) {
-        expandedNodesValueLabel.setText(Integer.toString(expandedNodesCount));
-        memoryUsageValueLabel.setText(df.format((double)freeMemory/1000000000) + "/" + df.format((double)totalMemory/1000000000) + " GB");
-        searchTimeValueLabel.setText(((double) timePassed / 1000) + " sec");
-
-        //Only update the gantt chart if the schedule is new, this removes flickering of the on hover objects as they are not being recreated every second
-        if (currentSchedule != schedule){
-            updateGanttChart(schedule);
-            currentSchedule = schedule;
+    private void render(SearchSnapshot snapshot) {
+        //Only update the view if the snapshot is new, this removes flickering of the on hover objects as they are not being recreated every frame
+        if (snapshot == null || snapshot == currentSnapshot) {
+            return;
         }
-        
-    }
+        Runtime runtime = Runtime.getRuntime();
+        expandedNodesValueLabel.setText(Integer.toString(snapshot.getExpandedNodes()));
+        memoryUsageValueLabel.setText(df.format((double)runtime.freeMemory()/1000000000) + "/" + df.format((double)runtime.totalMemory()/1000000000) + " GB");
+        searchTimeValueLabel.setText(((double) snapshot.getElapsedMillis() / 1000) + " sec");
+        progressCharts.record(snapshot);
+
+        if (canvasGanttChart != null) {
+            canvasGanttChart.setSchedule(snapshot.getScheduledTasks(), snapshot.getFinishTime());
+        } else {
+            updateGanttChart(snapshot.getScheduledTasks());
+        }
+        currentSnapshot = snapshot;
 
+        if (snapshot.isFinished()) {
+            finish();
+        }
+    }
 
-    private void updateGanttChart(Schedule schedule) {
-        // clear the existing data.
-        ganttChart.getData().clear();
 
-        // Clear every row.
-        for (XYChart.Series processor : processorSchedule) {
-            processor.getData().clear();
+    /**
+     * Brings the chart up to the given schedule by changing only the blocks
+     * that differ from what is displayed: a task at a new start time on the
+     * same processor is moved, a task on another processor is moved to that
+     * row, and tasks that are no longer scheduled are removed. The chart then
+     * only lays out the rows that changed.
+     * @param scheduledTasks the tasks of the schedule to display.
+     */
+    private void updateGanttChart(TaskVariant[] scheduledTasks) {
+        HashSet<Task> scheduled = new HashSet<>();
+
+        for (TaskVariant state : scheduledTasks) {
+            Task scheduledTask = state.getTask();
+            byte processor = state.getProcessor();
+            int startTime = state.getStartTime();
+            scheduled.add(scheduledTask);
+
+            XYChart.Data<Number,String> block = displayedBlocks.get(scheduledTask);
+            if (block != null) {
+                GanttChart.ExtraData extraData = (GanttChart.ExtraData) block.getExtraValue();
+                if (extraData.getProcessor() == processor) {
+                    if (extraData.getStartTime() != startTime) {
+                        block.setExtraValue(createExtraData(scheduledTask, startTime, processor));
+                        block.setXValue(startTime);
+                    }
+                    continue;
+                }
+                processorSchedule[extraData.getProcessor()].getData().remove(block);
+            }
+
+            block = new XYChart.Data<>(startTime, "processor " + processor,
+                    createExtraData(scheduledTask, startTime, processor));
+            processorSchedule[processor].getData().add(block);
+            displayedBlocks.put(scheduledTask, block);
         }
 
-        HashMap<Task,TaskVariant> scheduledTasks = schedule.getScheduledTasks();
+        Iterator<Map.Entry<Task, XYChart.Data<Number,String>>> displayed = displayedBlocks.entrySet().iterator();
+        while (displayed.hasNext()) {
+            Map.Entry<Task, XYChart.Data<Number,String>> entry = displayed.next();
+            if (!scheduled.contains(entry.getKey())) {
+                GanttChart.ExtraData extraData = (GanttChart.ExtraData) entry.getValue().getExtraValue();
+                processorSchedule[extraData.getProcessor()].getData().remove(entry.getValue());
+                displayed.remove();
+            }
+        }
+    }
 
+    private static GanttChart.ExtraData createExtraData(Task task, int startTime, byte processor) {
+        int weight = task.getWeight();
         /*
-        We need the following information for each scheduled task:
-        - Processor
-        - Start time
-        - Weight
+        To avoid the same adjacent color, make the color dependent on the start time.
          */
-        int currentColorIndex = 0;
-
-        for (Task scheduledTask : scheduledTasks.keySet()) {
-            byte processor = scheduledTasks.get(scheduledTask).getProcessor();
-            short startTime = scheduledTasks.get(scheduledTask).getStartTime();
-            short weight = scheduledTask.getWeight();
-
-            /*
-            To avoid the same adjacent color, make the color dependent on the start time.
-             */
-            processorSchedule[processor].getData().add(new XYChart.Data(startTime, "processor " + processor,
-                    new GanttChart.ExtraData( weight, "rgba(" + weight % 255 + "," + (startTime*20) % 255 + "," + startTime % 255 + ",0.7)", scheduledTask, startTime, processor)));
-
-            currentColorIndex ++;
-        }
-
-
-        // add the new data.
-        ganttChart.getData().addAll(processorSchedule);
+        return new GanttChart.ExtraData(weight, "rgba(" + weight % 255 + "," + (startTime*20) % 255 + ","
+                + startTime % 255 + ",0.7)", task, startTime, processor);
     }
 
     public int getProcessorCount() {
@@ -0,0 +1,27 @@
+import java.util.function.Supplier;
+
+/**
+ * Opens the JavaFX Visualiser for TreeSearch. It is only loaded through
+ * SearchView.load, so JavaFX is never loaded by runs without -v.
+ */
+public class VisualiserView implements SearchView {
+    private Visualiser visualiser;
+
+    @Override
+    public void open(int processorCount, int taskCount) {
+        // Sets up the visualiser.
+        new Thread(() -> {
+            Visualiser.launch(Visualiser.class, "" + processorCount, "" + taskCount);
+        }).start();
+
+        // Get the visualiser before continuing.
+        while (visualiser == null) {
+            visualiser = Visualiser.getVisualiser();
+        }
+    }
+
+    @Override
+    public void setSnapshotSource(Supplier<SearchSnapshot> snapshotSource) {
+        visualiser.setSnapshotSource(snapshotSource);
+    }
+}
@@ -0,0 +1,35 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The BeamSearchTest class checks that beam search finds valid schedules,
+ * that a beam wide enough to keep every node finds the optimal one, and
+ * that the number of threads does not change the finish time.
+ */
+public class BeamSearchTest {
+
+    @Test
+    public void testWideBeamIsOptimal() {
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            Graph graph = new GraphGenerator(shape, 8, 2).toGraph("out.dot");
+            int optimal = new TreeSearch(graph, 2, false).aStar().getSchedule().getFinishTime();
+            Node node = new TreeSearch(graph, 2, false).beamSearch(Integer.MAX_VALUE, 2);
+            assertEquals(optimal, node.getSchedule().getFinishTime(), shape.getLabel());
+        }
+    }
+
+    @Test
+    public void testNarrowBeamIsValidAndIndependentOfThreads() {
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            Graph graph = new GraphGenerator(shape, 20, 4).toGraph("out.dot");
+            Node sequential = new TreeSearch(graph, 3, false).beamSearch(5, 1);
+            Node parallel = new TreeSearch(graph, 3, false).beamSearch(5, 3);
+            int finishTime = ListSchedulerTest.checkValid(graph,
+                    new ArrayList<>(sequential.getSchedule().getScheduledTasks().values()));
+            assertEquals(finishTime, parallel.getSchedule().getFinishTime(), shape.getLabel());
+        }
+    }
+}
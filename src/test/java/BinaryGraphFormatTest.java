@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The BinaryGraphFormatTest class checks that a graph survives a round trip
+ * through the binary format, and that truncated or corrupt files are
+ * rejected with an IOException.
+ */
+public class BinaryGraphFormatTest {
+
+    @TempDir
+    File tempDir;
+
+    private Path writeGenerated(int taskCount) throws IOException {
+        Graph graph = new GraphGenerator(GraphGenerator.Shape.RANDOM_LAYERED, taskCount, 3).toGraph("out.dot");
+        Path path = new File(tempDir, "graph" + BinaryGraphFormat.EXTENSION).toPath();
+        BinaryGraphFormat.write(graph, path.toString());
+        return path;
+    }
+
+    /**
+     * @return every edge as "parent -> child = cost"
+     */
+    private static HashSet<String> edges(Iterable<Task> tasks) {
+        HashSet<String> edges = new HashSet<>();
+        for (Task task : tasks) {
+            for (Edge edge : task.getChildren()) {
+                edges.add(edge.getParent().getId() + " -> " + edge.getChild().getId()
+                        + " = " + edge.getCommunicationTime());
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Overwrites one int of a valid file, counted from the start of the file.
+     */
+    private static void setInt(Path path, int index, int value) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        bytes.putInt(4 * index, value);
+        Files.write(path, bytes.array());
+    }
+
+    private static void assertCorrupt(Path path) {
+        assertThrows(IOException.class, () -> BinaryGraphFormat.read(path.toString()));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Graph graph = new GraphGenerator(GraphGenerator.Shape.RANDOM_LAYERED, 60, 3).toGraph("out.dot");
+        Path path = new File(tempDir, "graph" + BinaryGraphFormat.EXTENSION).toPath();
+        BinaryGraphFormat.write(graph, path.toString());
+
+        HashMap<String, Task> read = BinaryGraphFormat.read(path.toString());
+        assertEquals(graph.getTaskCount(), read.size());
+        for (Task task : graph.getTasks()) {
+            assertEquals(task.getWeight(), read.get(task.getId()).getWeight(), task.getId());
+        }
+        assertEquals(edges(graph.getTasks()), edges(read.values()));
+
+        Graph loaded = new Graph(path.toString(), "out.dot");
+        assertEquals(graph.getTotalWeight(), loaded.getTotalWeight());
+        assertEquals(graph.getEdges().size(), loaded.getEdges().size());
+    }
+
+    @Test
+    public void testTruncatedFileIsRejected() throws IOException {
+        Path path = writeGenerated(20);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+        assertCorrupt(path);
+        Files.write(path, Arrays.copyOf(bytes, 8));
+        assertCorrupt(path);
+    }
+
+    @Test
+    public void testCorruptFilesAreRejected() throws IOException {
+        int n = 20;
+        int weights = 5;
+        int edgeOffsets = weights + n;
+        int children = edgeOffsets + n + 1;
+
+        Path path = writeGenerated(n);
+        byte[] valid = Files.readAllBytes(path);
+        int edgeCount = ByteBuffer.wrap(valid).getInt(4 * 3);
+        int idOffsets = children + 2 * edgeCount;
+        int[][] corruptions = {
+                {2, -1},                        // negative task count
+                {2, Integer.MAX_VALUE},         // task count far too large
+                {weights + 4, -5},              // negative weight
+                {edgeOffsets + 1, edgeCount + 1}, // edge offset past the edges
+                {edgeOffsets + n, edgeCount - 1}, // edges not all covered
+                {children, n},                  // child index out of range
+                {children + edgeCount, -1},     // negative communication cost
+                {idOffsets + 1, 1 << 20},       // id offset past the string table
+                {idOffsets + 2, 0},             // decreasing id offsets
+        };
+        for (int[] corruption : corruptions) {
+            Files.write(path, valid);
+            setInt(path, corruption[0], corruption[1]);
+            assertCorrupt(path);
+        }
+
+        Files.write(path, valid);
+        setInt(path, 0, 0);
+        assertCorrupt(path);
+    }
+
+    @Test
+    public void testGraphDoesNotLoadCorruptFile() throws IOException {
+        Path path = writeGenerated(20);
+        setInt(path, 2, -1);
+        assertThrows(UncheckedIOException.class, () -> new Graph(path.toString(), "out.dot"));
+    }
+}
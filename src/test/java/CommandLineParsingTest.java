@@ -50,9 +50,9 @@ public class CommandLineParsingTest {
         });
     }
     @Test   //With valid argument length
-    public void testCheckArgsMoreThanTenProcessorsAndValidFile() {
+    public void testCheckArgsMoreThanMaxProcessorsAndValidFile() {
         assertThrows(IllegalArgumentException.class, () -> {
-            App.checkArgs(new String[] {"input.dot", "20"});
+            App.checkArgs(new String[] {"input.dot", "65"});
         });
     }
     @Test   //With valid argument length
@@ -66,6 +66,7 @@ public class CommandLineParsingTest {
         App.checkArgs(new String[] {"input.dot", "1"});
         App.checkArgs(new String[] {"input.dot", "5"});
         App.checkArgs(new String[] {"input.dot", "10"});
+        App.checkArgs(new String[] {"input.dot", "64"});
     }
     @Test   //With valid argument length
     public void testCheckArgsInvalidFileAndProcessor() {
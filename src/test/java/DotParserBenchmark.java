@@ -0,0 +1,81 @@
+import com.paypal.digraph.parser.GraphEdge;
+import com.paypal.digraph.parser.GraphNode;
+import com.paypal.digraph.parser.GraphParser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Compares DotParser with the ANTLR based digraph-parser it replaced, on a
+ * large generated graph. The old pipeline is timed up to the same point:
+ * tasks and edges created from the parsed Weight strings.
+ *
+ * Run with
+ *   mvn test-compile exec:java -Dexec.mainClass=DotParserBenchmark -Dexec.classpathScope=test
+ * optionally passing the task count and edges per task as arguments.
+ */
+public class DotParserBenchmark {
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 20;
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int edgesPerTask = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        byte[] dot = generate(taskCount, edgesPerTask);
+        System.out.println("Graph: " + taskCount + " tasks, " + dot.length / 1024 + " KB");
+
+        long old = time(() -> parseWithDigraphParser(dot));
+        long current = time(() -> new DotParser(new ByteArrayInputStream(dot), "benchmark.dot"));
+        System.out.println("digraph-parser: " + old / 1000 + " us per graph");
+        System.out.println("DotParser:      " + current / 1000 + " us per graph");
+        System.out.println("Speed up:       " + String.format("%.1f", (double) old / current) + "x");
+    }
+
+    private static long time(Runnable parse) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parse.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            parse.run();
+        }
+        return (System.nanoTime() - start) / MEASURED_ROUNDS;
+    }
+
+    /**
+     * The parsing done by Graph before DotParser was rewritten.
+     */
+    private static void parseWithDigraphParser(byte[] dot) {
+        GraphParser parser = new GraphParser(new ByteArrayInputStream(dot));
+        HashMap<String, Task> tasks = new HashMap<>();
+        for (GraphNode node : parser.getNodes().values()) {
+            int weight = Integer.parseInt((String) node.getAttribute("Weight"));
+            tasks.put(node.getId(), new Task(weight, node.getId()));
+        }
+        for (GraphEdge parsedEdge : parser.getEdges().values()) {
+            int communicationTime = Integer.parseInt((String) parsedEdge.getAttribute("Weight"));
+            Task parent = tasks.get(parsedEdge.getNode1().getId());
+            Task child = tasks.get(parsedEdge.getNode2().getId());
+            Edge edge = new Edge(child, parent, communicationTime);
+            parent.addChild(edge);
+            child.addParent(edge);
+        }
+    }
+
+    private static byte[] generate(int taskCount, int edgesPerTask) {
+        Random random = new Random(42);
+        StringBuilder dot = new StringBuilder("digraph \"benchmark\" {\n");
+        for (int i = 0; i < taskCount; i++) {
+            dot.append('\t').append(i).append("\t [Weight=").append(1 + random.nextInt(20)).append("];\n");
+            for (int j = 0; j < edgesPerTask && i > 0; j++) {
+                int parent = random.nextInt(i);
+                dot.append('\t').append(parent).append(" -> ").append(i)
+                        .append("\t [Weight=").append(1 + random.nextInt(40)).append("];\n");
+            }
+        }
+        dot.append("}\n");
+        return dot.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,10 +1,14 @@
 import com.paypal.digraph.parser.GraphNode;
 import com.paypal.digraph.parser.GraphEdge;
-import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.apache.commons.io.FileUtils;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -14,22 +18,168 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 public class DotParserTest {
 
-    private static DotParser parser;
+    @TempDir
+    File tempDir;
 
+    private static DotParser parse(String dot, String outputFile) {
+        return new DotParser(new ByteArrayInputStream(dot.getBytes(StandardCharsets.UTF_8)), outputFile);
+    }
+
+    private static DotParser parse(String dot) {
+        return parse(dot, "out.dot");
+    }
 
-    @BeforeAll
-    public static void setUp() throws FileNotFoundException {
-        parser = new DotParser(new FileInputStream("examples/dot-inputs/Nodes_25_2p.dot"), "src/test/Nodes_25_2p-IO.dot");
+    /**
+     * @return the edges by "parent -> child"
+     */
+    private static HashMap<String, Edge> edgesByKey(DotParser parser) {
+        HashMap<String, Edge> edges = new HashMap<>();
+        for (Edge edge : parser.getEdges()) {
+            edges.put(edge.getParent().getId() + " -> " + edge.getChild().getId(), edge);
+        }
+        return edges;
     }
+
+    /**
+     * Writes the graph with every task at time 0 on processor 0.
+     * @return the written dot file
+     */
+    private String writeBack(DotParser parser, File outputFile) throws IOException {
+        ArrayList<TaskVariant> schedule = new ArrayList<>();
+        for (Task task : parser.getTasks().values()) {
+            schedule.add(new TaskVariant(task, 0, (byte) 0));
+        }
+        parser.setSchedule(schedule);
+        parser.writeScheduleToDot();
+        return FileUtils.readFileToString(outputFile, "utf-8");
+    }
+
     /*
     * Test checks if IO parsing of dot files are executed correctly
     */
     @Test
     public void testWriteToScheduleDot() throws IOException {
+        DotParser parser = new DotParser(new FileInputStream("examples/dot-inputs/Nodes_25_2p.dot"), "src/test/Nodes_25_2p-IO.dot");
         File expectedFile = new File("src/test/DotParserTestExpectedFile.dot");
         File outputFile = new File("src/test/Nodes_25_2p-IO.dot");
         parser.writeScheduleToDot();
         assertEquals(FileUtils.readFileToString(expectedFile, "utf-8"),
                 FileUtils.readFileToString(outputFile, "utf-8"));
     }
+
+    @Test
+    public void testCommentsAreSkipped() {
+        DotParser parser = parse("// a line comment\n"
+                + "strict digraph g { # a hash comment\n"
+                + "  a [Weight=2]; /* a block\n comment */ b [Weight=3];\n"
+                + "  a -> b [Weight=1]; // trailing\n"
+                + "}");
+        assertEquals(2, parser.getTasks().size());
+        assertEquals(2, parser.getTasks().get("a").getWeight());
+        assertEquals(3, parser.getTasks().get("b").getWeight());
+        assertEquals(1, parser.getEdges().size());
+    }
+
+    @Test
+    public void testQuotedHtmlAndEscapedIdsKeepTheirText() {
+        DotParser parser = parse("digraph \"g\" {\n"
+                + "  \"b c\" [Weight=3];\n"
+                + "  <x<b>y</b>> [Weight=4];\n"
+                + "  \"say \\\"hi\\\"\" [Weight=5];\n"
+                + "}");
+        assertEquals(3, parser.getTasks().get("\"b c\"").getWeight());
+        assertEquals(4, parser.getTasks().get("<x<b>y</b>>").getWeight());
+        assertEquals(5, parser.getTasks().get("\"say \\\"hi\\\"\"").getWeight());
+    }
+
+    @Test
+    public void testQuotedIdsRoundTrip() throws IOException {
+        File outputFile = new File(tempDir, "out.dot");
+        DotParser parser = parse("digraph g {\n"
+                + "  a [Weight=2];\n"
+                + "  \"b c\" [Weight=3];\n"
+                + "  d [Weight=1];\n"
+                + "  a -> \"b c\" -> d [Weight=1];\n"
+                + "}", outputFile.getPath());
+        String written = writeBack(parser, outputFile);
+        assertTrue(written.contains("\t\"b c\"\t[Weight=3,Start=0,Processor=0];\n"), written);
+        assertTrue(written.contains("\ta -> \"b c\"\t[Weight=1];\n"), written);
+        // the quoted id sorts first, as the quote is part of it
+        assertTrue(written.indexOf("\"b c\"\t") < written.indexOf("\ta\t"), written);
+
+        DotParser reread = parse(written);
+        assertEquals(parser.getTasks().keySet(), reread.getTasks().keySet());
+        assertEquals(edgesByKey(parser).keySet(), edgesByKey(reread).keySet());
+    }
+
+    @Test
+    public void testEdgeChainsAddEveryEdge() {
+        DotParser parser = parse("digraph g {\n"
+                + "  a [Weight=1]; b [Weight=1]; c [Weight=1]; d [Weight=1];\n"
+                + "  a -> b -> c -> d [Weight=7];\n"
+                + "}");
+        HashMap<String, Edge> edges = edgesByKey(parser);
+        assertEquals(3, edges.size());
+        for (String key : new String[] {"a -> b", "b -> c", "c -> d"}) {
+            assertEquals(7, edges.get(key).getCommunicationTime(), key);
+        }
+    }
+
+    @Test
+    public void testDefaultAndGraphAttributeStatementsAreIgnored() {
+        DotParser parser = parse("digraph g {\n"
+                + "  graph [rankdir=LR];\n"
+                + "  node [shape=box];\n"
+                + "  edge [color=blue];\n"
+                + "  label=\"a graph\";\n"
+                + "  a [Weight=2, shape=circle];\n"
+                + "}");
+        assertEquals(1, parser.getTasks().size());
+        assertEquals(2, parser.getTasks().get("a").getWeight());
+    }
+
+    @Test
+    public void testSubgraphsAreFlattened() {
+        DotParser parser = parse("digraph g {\n"
+                + "  a [Weight=1];\n"
+                + "  subgraph cluster0 { c [Weight=2]; a -> c [Weight=3]; }\n"
+                + "  { d [Weight=4]; }\n"
+                + "}");
+        assertEquals(3, parser.getTasks().size());
+        assertEquals(2, parser.getTasks().get("c").getWeight());
+        assertEquals(4, parser.getTasks().get("d").getWeight());
+        assertEquals(3, edgesByKey(parser).get("a -> c").getCommunicationTime());
+    }
+
+    @Test
+    public void testExtraEdgeAttributesAreWrittenBack() throws IOException {
+        File outputFile = new File(tempDir, "out.dot");
+        DotParser parser = parse("digraph g {\n"
+                + "  a [Weight=1]; b [Weight=1];\n"
+                + "  a -> b [Weight=\"4\", color=red];\n"
+                + "}", outputFile.getPath());
+        Map<String, Object> attributes = edgesByKey(parser).get("a -> b").getAttributes();
+        assertEquals("red", attributes.get("color"));
+        assertEquals(4, edgesByKey(parser).get("a -> b").getCommunicationTime());
+        String written = writeBack(parser, outputFile);
+        assertTrue(written.contains("color=red"), written);
+        assertTrue(written.contains("Weight=4"), written);
+    }
+
+    @Test
+    public void testMissingWeightIsAnError() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> parse("digraph g { a [Weight=1]; b; a -> b [Weight=1]; }"));
+        assertTrue(e.getMessage().contains("b has no Weight"), e.getMessage());
+        e = assertThrows(IllegalArgumentException.class,
+                () -> parse("digraph g { a [Weight=1]; b [Weight=1]; a -> b; }"));
+        assertTrue(e.getMessage().contains("a -> b has no Weight"), e.getMessage());
+    }
+
+    @Test
+    public void testNegativeWeightIsAnError() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> parse("digraph g { a [Weight=-3]; }"));
+        assertTrue(e.getMessage().contains("invalid Weight -3"), e.getMessage());
+    }
 }
@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The GeneticSchedulerTest class checks that the genetic schedules are valid,
+ * between the optimal and HEFT finish times, and that the search stops as
+ * soon as it reaches the lower bound.
+ */
+public class GeneticSchedulerTest {
+
+    @Test
+    public void testScheduleIsBetweenOptimalAndHeft() {
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            Graph graph = new GraphGenerator(shape, 9, 3).toGraph("out.dot");
+            int optimal = new TreeSearch(graph, 3, false).aStar().getSchedule().getFinishTime();
+            int heft = ListSchedulerTest.checkValid(graph,
+                    new ListScheduler(graph, 3).schedule(ListScheduler.Algorithm.HEFT));
+
+            GeneticScheduler genetic = new GeneticScheduler(graph, 3, 2, 100, 1);
+            List<TaskVariant> schedule = genetic.run();
+            int finishTime = ListSchedulerTest.checkValid(graph, schedule);
+            assertEquals(finishTime, genetic.getBestFinishTime(), shape.getLabel());
+            assertTrue(finishTime >= optimal && finishTime <= heft, shape.getLabel());
+            assertTrue(genetic.getLowerBound() <= optimal, shape.getLabel());
+        }
+    }
+
+    @Test
+    public void testStopsAtLowerBound() {
+        // four independent tasks of the same weight fill two processors exactly
+        HashMap<String, Task> tasks = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            Task task = new Task(5, Integer.toString(i));
+            tasks.put(task.getId(), task);
+        }
+        Graph graph = new Graph(tasks, "out.dot");
+        long start = System.currentTimeMillis();
+        GeneticScheduler genetic = new GeneticScheduler(graph, 2, 2, 60000, 1);
+        genetic.run();
+        assertEquals(10, genetic.getBestFinishTime());
+        assertEquals(10, genetic.getLowerBound());
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+}
@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The GraphGeneratorTest class checks that generated graphs are reproducible
+ * from their seed, acyclic, and the same whether written as dot or built directly.
+ */
+public class GraphGeneratorTest {
+
+    private static String dot(GraphGenerator generator) throws IOException {
+        StringWriter writer = new StringWriter();
+        generator.writeDot(writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void testSameSeedGivesSameGraph() throws IOException {
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            assertEquals(dot(new GraphGenerator(shape, 50, 7)), dot(new GraphGenerator(shape, 50, 7)));
+        }
+        assertNotEquals(dot(new GraphGenerator(GraphGenerator.Shape.RANDOM_LAYERED, 50, 7)),
+                dot(new GraphGenerator(GraphGenerator.Shape.RANDOM_LAYERED, 50, 8)));
+    }
+
+    @Test
+    public void testEveryShapeIsConnectedAndAcyclic() {
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            Graph graph = new GraphGenerator(shape, 40, 1).toGraph("out.dot");
+            assertEquals(40, graph.getTaskCount(), shape.getLabel());
+            for (Edge edge : graph.getEdges()) {
+                // ids are numbered in topological order
+                assertTrue(Integer.parseInt(edge.getParent().getId()) < Integer.parseInt(edge.getChild().getId()),
+                        shape.getLabel());
+            }
+            for (Task task : graph.getTasks()) {
+                assertTrue(!task.isRootTask() || !task.getChildren().isEmpty(), shape.getLabel());
+            }
+        }
+    }
+
+    @Test
+    public void testDotMatchesDirectGraph() throws IOException {
+        GraphGenerator generator = new GraphGenerator(GraphGenerator.Shape.SERIES_PARALLEL, 30, 3);
+        generator.setCcr(5);
+        Graph parsed = new Graph(new ByteArrayInputStream(dot(generator).getBytes(StandardCharsets.UTF_8)),
+                "out.dot");
+        Graph built = generator.toGraph("out.dot");
+        assertEquals(built.getTotalWeight(), parsed.getTotalWeight());
+        assertEquals(built.getEdges().size(), parsed.getEdges().size());
+        int builtCommunication = 0;
+        int parsedCommunication = 0;
+        for (Edge edge : built.getEdges()) {
+            builtCommunication += edge.getCommunicationTime();
+        }
+        for (Edge edge : parsed.getEdges()) {
+            parsedCommunication += edge.getCommunicationTime();
+        }
+        assertEquals(builtCommunication, parsedCommunication);
+    }
+}
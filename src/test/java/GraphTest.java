@@ -0,0 +1,42 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The GraphTest class checks that graphs with times beyond the range of a
+ * short are scheduled correctly and that graphs whose times could overflow
+ * are rejected when they are loaded.
+ */
+public class GraphTest {
+
+    @TempDir
+    File tempDir;
+
+    private Graph load(String dot) {
+        return new Graph(new ByteArrayInputStream(dot.getBytes(StandardCharsets.UTF_8)),
+                new File(tempDir, "out.dot").getPath());
+    }
+
+    @Test
+    public void testLargeWeightsAreScheduled() {
+        Graph graph = load("digraph g {\n"
+                + "a [Weight=200000];\n b [Weight=300000];\n c [Weight=300000];\n d [Weight=200000];\n"
+                + "a -> b [Weight=100000];\n a -> c [Weight=100000];\n"
+                + "b -> d [Weight=100000];\n c -> d [Weight=100000];\n}\n");
+        Node node = new TreeSearch(graph, 2, false).aStar();
+
+        // a, then b and c in parallel, with d after c on the second processor
+        assertEquals(800000, node.getSchedule().getFinishTime());
+    }
+
+    @Test
+    public void testGraphThatCouldOverflowIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> load("digraph g {\n"
+                + "a [Weight=600000000];\n b [Weight=600000000];\n a -> b [Weight=1];\n}\n"));
+    }
+}
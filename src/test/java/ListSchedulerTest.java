@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The ListSchedulerTest class checks that the HEFT and CPOP schedules are
+ * valid, never beat the optimal schedule, and that graphs too deep for a
+ * recursive bottom level are scheduled.
+ */
+public class ListSchedulerTest {
+
+    /**
+     * Checks every task starts after its parents' data arrives and that no
+     * two tasks overlap on a processor.
+     * @return the finish time of the schedule
+     */
+    static int checkValid(Graph graph, List<TaskVariant> schedule) {
+        assertEquals(graph.getTaskCount(), schedule.size());
+        HashMap<Task, TaskVariant> byTask = new HashMap<>();
+        int finishTime = 0;
+        for (TaskVariant state : schedule) {
+            byTask.put(state.getTask(), state);
+            finishTime = Math.max(finishTime, state.getFinishTime());
+        }
+        for (Edge edge : graph.getEdges()) {
+            TaskVariant parent = byTask.get(edge.getParent());
+            TaskVariant child = byTask.get(edge.getChild());
+            int delay = parent.getProcessor() == child.getProcessor() ? 0 : edge.getCommunicationTime();
+            assertTrue(child.getStartTime() >= parent.getFinishTime() + delay,
+                    edge.getParent().getId() + " -> " + edge.getChild().getId());
+        }
+        for (TaskVariant a : schedule) {
+            for (TaskVariant b : schedule) {
+                if (a != b && a.getProcessor() == b.getProcessor()) {
+                    assertTrue(a.getFinishTime() <= b.getStartTime() || b.getFinishTime() <= a.getStartTime());
+                }
+            }
+        }
+        return finishTime;
+    }
+
+    @Test
+    public void testSchedulesAreValidAndNotBelowOptimal() {
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            Graph graph = new GraphGenerator(shape, 9, 3).toGraph("out.dot");
+            int optimal = new TreeSearch(graph, 3, false).aStar().getSchedule().getFinishTime();
+            for (ListScheduler.Algorithm algorithm : ListScheduler.Algorithm.values()) {
+                List<TaskVariant> schedule = new ListScheduler(graph, 3).schedule(algorithm);
+                assertTrue(checkValid(graph, schedule) >= optimal, shape.getLabel() + " " + algorithm);
+            }
+        }
+    }
+
+    @Test
+    public void testZeroWeightSourcesAreScheduled() {
+        // more parents finishing at time 0 than processors
+        HashMap<String, Task> tasks = new HashMap<>();
+        Task child = new Task(3, "c");
+        tasks.put(child.getId(), child);
+        for (int i = 0; i < 3; i++) {
+            Task source = new Task(0, Integer.toString(i));
+            tasks.put(source.getId(), source);
+            Edge edge = new Edge(child, source, 2);
+            source.addChild(edge);
+            child.addParent(edge);
+        }
+        Graph graph = new Graph(tasks, "out.dot");
+        for (ListScheduler.Algorithm algorithm : ListScheduler.Algorithm.values()) {
+            ListScheduler scheduler = new ListScheduler(graph, 1);
+            assertEquals(3, checkValid(graph, scheduler.schedule(algorithm)), algorithm.toString());
+            // and again, as the scheduler is reused
+            assertEquals(3, checkValid(graph, scheduler.schedule(algorithm)), algorithm.toString());
+        }
+    }
+
+    @Test
+    public void testDeepChainIsScheduled() {
+        // deep enough that the recursive bottom level used to overflow the stack
+        HashMap<String, Task> tasks = new HashMap<>();
+        Task previous = null;
+        for (int i = 0; i < 100000; i++) {
+            Task task = new Task(1, Integer.toString(i));
+            tasks.put(task.getId(), task);
+            if (previous != null) {
+                Edge edge = new Edge(task, previous, 5);
+                previous.addChild(edge);
+                task.addParent(edge);
+            }
+            previous = task;
+        }
+        Graph graph = new Graph(tasks, "out.dot");
+        for (ListScheduler.Algorithm algorithm : ListScheduler.Algorithm.values()) {
+            List<TaskVariant> schedule = new ListScheduler(graph, 4).schedule(algorithm);
+            int finishTime = 0;
+            for (TaskVariant state : schedule) {
+                finishTime = Math.max(finishTime, state.getFinishTime());
+            }
+            // the whole chain stays on one processor
+            assertEquals(100000, finishTime, algorithm.toString());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The NeighbourhoodSearchTest class checks that improved schedules are valid
+ * and no worse than where they started, and that a window covering the whole
+ * graph finds the optimal schedule.
+ */
+public class NeighbourhoodSearchTest {
+
+    @Test
+    public void testImprovedScheduleIsValidAndNoWorse() {
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            Graph graph = new GraphGenerator(shape, 30, 5).toGraph("out.dot");
+            List<TaskVariant> heft = new ListScheduler(graph, 3).schedule(ListScheduler.Algorithm.HEFT);
+            int heftFinishTime = ListSchedulerTest.checkValid(graph, heft);
+
+            List<TaskVariant> improved = new NeighbourhoodSearch(graph, 3, 4, 2).improve(heft);
+            assertTrue(ListSchedulerTest.checkValid(graph, improved) <= heftFinishTime, shape.getLabel());
+        }
+    }
+
+    @Test
+    public void testWholeGraphWindowIsOptimal() {
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            Graph graph = new GraphGenerator(shape, 8, 6).toGraph("out.dot");
+            int optimal = new TreeSearch(graph, 2, false).aStar().getSchedule().getFinishTime();
+            List<TaskVariant> heft = new ListScheduler(graph, 2).schedule(ListScheduler.Algorithm.HEFT);
+
+            List<TaskVariant> improved = new NeighbourhoodSearch(graph, 2, 8, 1).improve(heft);
+            assertEquals(optimal, ListSchedulerTest.checkValid(graph, improved), shape.getLabel());
+        }
+    }
+}
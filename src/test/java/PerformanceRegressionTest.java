@@ -0,0 +1,176 @@
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The PerformanceRegressionTest class runs the search end to end over the
+ * corpus in the committed baseline file and fails when a case has a different
+ * makespan, or is slower, expands more nodes or uses more heap than recorded,
+ * beyond a threshold.
+ *
+ * It is excluded from the normal build and run with
+ *   mvn test -Pperf [-Dperf.threshold=0.5] [-Dperf.record=true]
+ * The measured values are written to target/performance-results.tsv. With
+ * perf.record the baseline file is rewritten from them instead of compared,
+ * keeping the recorded makespans. Those are the optimal schedules for the
+ * examples and, for generated graphs, the schedules found when they were added.
+ */
+@Tag("performance")
+public class PerformanceRegressionTest {
+    private static final String BASELINE_FILE = "src/test/resources/performance-baseline.tsv";
+    private static final String RESULTS_FILE = "target/performance-results.tsv";
+    private static final String HEADER = "graph\tprocessors\tthreads\tmakespan\tnodes\tmillis\theapMB";
+    private static final int REPEATS = 3;
+
+    // small cases are dominated by noise, so a regression must also exceed these
+    private static final long SLACK_MILLIS = 25;
+    private static final long SLACK_NODES = 100;
+    private static final long SLACK_HEAP_MB = 16;
+
+    private final double threshold = Double.parseDouble(System.getProperty("perf.threshold", "0.5"));
+    private final boolean record = Boolean.getBoolean("perf.record");
+    private final List<String[]> cases = new ArrayList<>();
+    private long[][] measured;
+
+    @TestFactory
+    public List<DynamicTest> testCorpusAgainstBaseline() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(BASELINE_FILE))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith("#") && !line.startsWith("graph\t")) {
+                    cases.add(line.split("\t"));
+                }
+            }
+        }
+
+        measured = new long[cases.size()][];
+        List<DynamicTest> tests = new ArrayList<>();
+        for (int i = 0; i < cases.size(); i++) {
+            String[] baseline = cases.get(i);
+            int index = i;
+            String name = baseline[0] + " P=" + baseline[1] + " threads=" + baseline[2];
+            tests.add(DynamicTest.dynamicTest(name, () -> check(baseline, index)));
+        }
+        tests.add(DynamicTest.dynamicTest("write results", this::writeResults));
+        return tests;
+    }
+
+    private void check(String[] baseline, int index) {
+        int processorCount = Integer.parseInt(baseline[1]);
+        int threadCount = Integer.parseInt(baseline[2]);
+        long makespan = Long.parseLong(baseline[3]);
+
+        // the first run only warms up the JIT
+        run(baseline[0], processorCount, threadCount);
+        long[][] runs = new long[REPEATS][];
+        for (int i = 0; i < REPEATS; i++) {
+            runs[i] = run(baseline[0], processorCount, threadCount);
+        }
+        long[] result = new long[4];
+        for (int column = 0; column < result.length; column++) {
+            long[] values = new long[REPEATS];
+            for (int i = 0; i < REPEATS; i++) {
+                values[i] = runs[i][column];
+            }
+            Arrays.sort(values);
+            result[column] = values[REPEATS / 2];
+        }
+        measured[index] = result;
+
+        List<String> regressions = new ArrayList<>();
+        for (long[] run : runs) {
+            if (run[0] != makespan) {
+                regressions.add("makespan " + run[0] + " instead of " + makespan);
+            }
+        }
+        if (!record) {
+            compare("nodes", result[1], Long.parseLong(baseline[4]), SLACK_NODES, regressions);
+            compare("millis", result[2], Long.parseLong(baseline[5]), SLACK_MILLIS, regressions);
+            compare("heapMB", result[3], Long.parseLong(baseline[6]), SLACK_HEAP_MB, regressions);
+        }
+        assertTrue(regressions.isEmpty(), String.join(", ", regressions));
+    }
+
+    private void compare(String name, long value, long baseline, long slack, List<String> regressions) {
+        if (value > baseline * (1 + threshold) && value > baseline + slack) {
+            regressions.add(String.format(Locale.ROOT, "%s %d against %d (%+.0f%%)",
+                    name, value, baseline, 100.0 * (value - baseline) / Math.max(1, baseline)));
+        }
+    }
+
+    /**
+     * @return the makespan, nodes expanded, wall time in ms and peak heap in MB
+     */
+    private static long[] run(String graphName, int processorCount, int threadCount) {
+        Graph graph = load(graphName);
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        long start = System.nanoTime();
+        TreeSearch search = new TreeSearch(graph, processorCount, false);
+        Node node = threadCount > 1 ? search.aStarCentralized(threadCount) : search.aStar();
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        assertNotNull(node, "no schedule found for " + graphName);
+        return new long[] {node.getSchedule().getFinishTime(), search.getExpandedNodesCount(), millis,
+                peakHeap >> 20};
+    }
+
+    /**
+     * @param graphName a dot file, or "generated:SHAPE:N:SEED" for a graph from the GraphGenerator
+     */
+    private static Graph load(String graphName) {
+        if (graphName.startsWith("generated:")) {
+            String[] parts = graphName.split(":");
+            return new GraphGenerator(GraphGenerator.Shape.parse(parts[1]), Integer.parseInt(parts[2]),
+                    Long.parseLong(parts[3])).toGraph("target/performance-output.dot");
+        }
+        return new Graph(graphName, "target/performance-output.dot");
+    }
+
+    private void writeResults() throws IOException {
+        new File("target").mkdirs();
+        String file = record ? BASELINE_FILE : RESULTS_FILE;
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            writer.println("# Baseline for PerformanceRegressionTest, rewrite with mvn test -Pperf -Dperf.record=true");
+            writer.println(HEADER);
+            for (int i = 0; i < cases.size(); i++) {
+                String[] baseline = cases.get(i);
+                long[] result = measured[i];
+                if (result == null) {
+                    // the case did not finish, so its row is kept as it was
+                    writer.println(String.join("\t", baseline));
+                    continue;
+                }
+                writer.println(String.join("\t", baseline[0], baseline[1], baseline[2], baseline[3],
+                        Long.toString(result[1]), Long.toString(result[2]), Long.toString(result[3])));
+            }
+        }
+    }
+}
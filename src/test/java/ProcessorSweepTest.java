@@ -0,0 +1,57 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The ProcessorSweepTest class checks that the sweep finds the same optimum
+ * as a separate search for every processor count, and that its schedules
+ * are valid and never get worse with more processors.
+ */
+public class ProcessorSweepTest {
+
+    @Test
+    public void testSweepMatchesSeparateSearches() {
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            Graph graph = new GraphGenerator(shape, 8, 3).toGraph("out.dot");
+            ProcessorSweep sweep = new ProcessorSweep(graph, 4, 2);
+            List<ProcessorSweep.Result> results = sweep.sweep();
+            assertEquals(4, results.size(), shape.getLabel());
+
+            int previous = Integer.MAX_VALUE;
+            for (ProcessorSweep.Result result : results) {
+                int processorCount = result.getProcessorCount();
+                int optimal = new TreeSearch(graph, processorCount, false).aStar().getSchedule().getFinishTime();
+                assertEquals(optimal, result.getFinishTime(), shape.getLabel() + " " + processorCount);
+                assertTrue(result.getFinishTime() <= previous, shape.getLabel() + " " + processorCount);
+                previous = result.getFinishTime();
+
+                List<TaskVariant> schedule = new ArrayList<>(sweep.getSchedule(processorCount));
+                assertEquals(optimal, ListSchedulerTest.checkValid(graph, schedule));
+                for (TaskVariant state : schedule) {
+                    assertTrue(state.getProcessor() < processorCount);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMoreProcessorsThanTasksReuseSchedule() {
+        // three independent tasks can never use more than three processors
+        HashMap<String, Task> tasks = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task(4 + i, Integer.toString(i));
+            tasks.put(task.getId(), task);
+        }
+        Graph graph = new Graph(tasks, "out.dot");
+        List<ProcessorSweep.Result> results = new ProcessorSweep(graph, 6, 1).sweep();
+        for (int processorCount = 4; processorCount <= 6; processorCount++) {
+            ProcessorSweep.Result result = results.get(processorCount - 1);
+            assertEquals(6, result.getFinishTime());
+            assertEquals(0, result.getNodesExpanded());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The ProgressHistoryTest class checks that the history stays within its
+ * capacity while still covering the whole run.
+ */
+public class ProgressHistoryTest {
+
+    @Test
+    public void testLongRunIsDownsampledWithinCapacity() {
+        ProgressHistory history = new ProgressHistory(16, 1, 1);
+        for (int time = 0; time < 10000; time++) {
+            history.add(time, time);
+            assertTrue(history.size() <= 16);
+        }
+
+        assertTrue(history.size() >= 8);
+        assertTrue(history.getTime(0) < 1000);
+        assertTrue(history.getTime(history.size() - 1) > 9000);
+        for (int i = 1; i < history.size(); i++) {
+            assertTrue(history.getTime(i) > history.getTime(i - 1));
+        }
+    }
+
+    @Test
+    public void testMergedSamplesAreAveraged() {
+        ProgressHistory history = new ProgressHistory(4, 2, 1);
+        for (int time = 0; time < 5; time++) {
+            history.add(time, time * 2, 10);
+        }
+
+        assertEquals(3, history.size());
+        assertEquals(2, history.getInterval());
+        assertEquals(1, history.getTime(0));
+        assertEquals(1, history.getValue(0, 0));
+        assertEquals(5, history.getValue(0, 1));
+        assertEquals(8, history.getValue(0, 2));
+        assertEquals(10, history.getValue(1, 2));
+        assertFalse(history.add(5, 0, 0));
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The ScheduleWriterTest class checks the output of every schedule format on
+ * a small schedule, including a task id that each format has to quote or
+ * escape, and that the writers are found by their format name.
+ */
+public class ScheduleWriterTest {
+    // an id with a space, quotes and a comma
+    private static final String ODD_ID = "x \"y\", z";
+
+    private final Task plain = new Task(2, "a");
+    private final Task odd = new Task(3, ODD_ID);
+    private final Edge edge = new Edge(odd, plain, 1);
+    private final List<Task> tasks = Arrays.asList(odd, plain);
+    private final HashMap<Task, TaskVariant> schedule = new HashMap<>();
+
+    public ScheduleWriterTest() {
+        plain.addChild(edge);
+        odd.addParent(edge);
+        schedule.put(plain, new TaskVariant(plain, 0, (byte) 0));
+        schedule.put(odd, new TaskVariant(odd, 2, (byte) 1));
+    }
+
+    private byte[] write(ScheduleWriter writer, String graphName) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(graphName, tasks, Collections.singletonList(edge), schedule, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testDot() throws IOException {
+        String expected = "digraph  \"g\" {\n"
+                + "\ta\t[Weight=2,Start=0,Processor=0];\n"
+                + "\t\"x \\\"y\\\", z\"\t[Weight=3,Start=2,Processor=1];\n"
+                + "\ta -> \"x \\\"y\\\", z\"\t[Weight=1];\n"
+                + "}";
+        assertEquals(expected, new String(write(new DotScheduleWriter(), "g"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testJson() throws IOException {
+        String expected = "{\"graph\":\"g\\u00091\",\"finishTime\":5,\"tasks\":[\n"
+                + "{\"id\":\"a\",\"weight\":2,\"start\":0,\"processor\":0},\n"
+                + "{\"id\":\"x \\\"y\\\", z\",\"weight\":3,\"start\":2,\"processor\":1}],\"edges\":[\n"
+                + "{\"from\":\"a\",\"to\":\"x \\\"y\\\", z\",\"weight\":1}]}\n";
+        assertEquals(expected, new String(write(new JsonScheduleWriter(), "g\t1"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCsv() throws IOException {
+        String expected = "task,weight,start,finish,processor\n"
+                + "a,2,0,2,0\n"
+                + "\"x \"\"y\"\", z\",3,2,5,1\n";
+        assertEquals(expected, new String(write(new CsvScheduleWriter(), "g"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBinary() throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(write(new BinaryScheduleWriter(), "g")));
+        assertEquals(BinaryScheduleWriter.MAGIC, in.readInt());
+        assertEquals(BinaryScheduleWriter.VERSION, in.readInt());
+        assertEquals(5, in.readInt());
+        assertEquals(2, in.readInt());
+        assertEquals("a", in.readUTF());
+        assertEquals(2, in.readInt());
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.readByte());
+        assertEquals(ODD_ID, in.readUTF());
+        assertEquals(3, in.readInt());
+        assertEquals(2, in.readInt());
+        assertEquals(1, in.readByte());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testForFormat() {
+        assertTrue(ScheduleWriter.forFormat("dot") instanceof DotScheduleWriter);
+        assertTrue(ScheduleWriter.forFormat("json") instanceof JsonScheduleWriter);
+        assertTrue(ScheduleWriter.forFormat("csv") instanceof CsvScheduleWriter);
+        assertTrue(ScheduleWriter.forFormat("bin") instanceof BinaryScheduleWriter);
+        assertEquals(".json", ScheduleWriter.forFormat("json").getExtension());
+        assertThrows(IllegalArgumentException.class, () -> ScheduleWriter.forFormat("xml"));
+    }
+}
@@ -0,0 +1,302 @@
+import com.sun.management.ThreadMXBean;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Microbenchmarks for the hot paths of the search: building a Schedule,
+ * its cost, expanding a Node, its signature, the open list and the closed set.
+ *
+ * Each benchmark runs on states taken from a real search of the example
+ * graphs, so the schedules have realistic sizes. Every benchmark is run for
+ * a number of warmup iterations and then measured iterations of a fixed
+ * length, and reports throughput with the spread over iterations and the
+ * bytes allocated per operation, measured on the benchmark thread.
+ *
+ * Run with
+ *   mvn test-compile exec:java -Dexec.mainClass=SearchBenchmark -Dexec.classpathScope=test
+ *       -Dexec.args="[graph.dot ...] [-p P] [-w WARMUP] [-i ITERATIONS] [-t MILLIS]
+ *                    [-f FILTER] [-o RESULTS.tsv] [-b BASELINE.tsv]"
+ * "-o" saves the results and "-b" prints the change against saved results,
+ * which gives the before and after numbers for a change to the engine.
+ */
+public class SearchBenchmark {
+    private static final int SAMPLE_SIZE = 2000;
+    private static final int OPEN_LIST_SIZE = 10000;
+
+    // results are folded into this so the JIT cannot remove the work
+    private static volatile long sink;
+
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final long iterationNanos;
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final List<String[]> results = new ArrayList<>();
+
+    SearchBenchmark(int warmupIterations, int measuredIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.iterationNanos = iterationMillis * 1000000;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> graphs = new ArrayList<>();
+        int processorCount = 2;
+        int warmup = 5;
+        int iterations = 5;
+        long millis = 500;
+        String filter = "";
+        String output = null;
+        String baseline = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case ("-p"):
+                    processorCount = Integer.parseInt(args[++i]);
+                    break;
+                case ("-w"):
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case ("-i"):
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case ("-t"):
+                    millis = Long.parseLong(args[++i]);
+                    break;
+                case ("-f"):
+                    filter = args[++i];
+                    break;
+                case ("-o"):
+                    output = args[++i];
+                    break;
+                case ("-b"):
+                    baseline = args[++i];
+                    break;
+                default:
+                    graphs.add(args[i]);
+            }
+        }
+        if (graphs.isEmpty()) {
+            graphs.add("examples/Nodes_10_Random.dot");
+            graphs.add("examples/Nodes_11_OutTree.dot");
+        }
+
+        SearchBenchmark benchmark = new SearchBenchmark(warmup, iterations, millis);
+        System.out.println(String.format(Locale.ROOT, "%-22s %-24s %14s %9s %10s %10s %10s",
+                "benchmark", "graph", "ops/s", "+-", "ns/op", "B/op", "MB/s"));
+        for (String file : graphs) {
+            benchmark.runAll(file, processorCount, filter);
+        }
+        if (output != null) {
+            benchmark.save(output);
+        }
+        if (baseline != null) {
+            benchmark.compare(baseline);
+        }
+    }
+
+    private void runAll(String file, int processorCount, String filter) {
+        Graph graph = new Graph(file, "benchmark-output.dot");
+        String name = file.substring(file.lastIndexOf('/') + 1).replace(".dot", "");
+        List<Node> nodes = sampleSearch(graph, processorCount);
+        int count = nodes.size();
+
+        // a scheduled task, its processor and the schedule it was added to,
+        // for rebuilding the same child schedules
+        Schedule[] parents = new Schedule[count];
+        Task[] tasks = new Task[count];
+        byte[] processors = new byte[count];
+        Random random = new Random(1);
+        for (int i = 0; i < count; i++) {
+            parents[i] = nodes.get(i).getSchedule();
+            ArrayList<Task> schedulable = new ArrayList<>(parents[i].getSchedulableTasks().keySet());
+            schedulable.sort(Comparator.comparing(Task::getId));
+            tasks[i] = schedulable.get(random.nextInt(schedulable.size()));
+            int processorsInUse = Math.min(parents[i].getProcessorFinishTimes().length + 1, processorCount);
+            processors[i] = (byte) random.nextInt(processorsInUse);
+        }
+        Schedule[] schedules = new Schedule[count];
+        String[] signatures = new String[count];
+        for (int i = 0; i < count; i++) {
+            schedules[i] = new Schedule(tasks[i], processors[i], parents[i]);
+            signatures[i] = new Node(0, schedules[i]).toString();
+        }
+
+        run("schedule.new", name, filter, i -> {
+            int k = i % count;
+            return new Schedule(tasks[k], processors[k], parents[k]).getProcessorFinishTimes().length;
+        });
+        run("schedule.getCost", name, filter, i -> schedules[i % count].getCost(graph, processorCount));
+        // the node being expanded is rebuilt each time, as expanding consumes its schedulable tasks
+        run("node.expandNode", name, filter, i -> {
+            int k = i % count;
+            Node node = new Node(new Schedule(tasks[k], processors[k], parents[k]), graph, processorCount);
+            return node.expandNode(processorCount, graph).size();
+        });
+        run("node.getSuccessors", name, filter, i -> {
+            int k = i % count;
+            Node node = new Node(new Schedule(tasks[k], processors[k], parents[k]), graph, processorCount);
+            return node.getSuccessors(processorCount, graph).size();
+        });
+        run("node.toString", name, filter, i -> new Node(0, schedules[i % count]).toString().length());
+
+        PriorityQueue<Node> openList = new PriorityQueue<>(Comparator.comparingInt(Node::getCost));
+        for (int i = 0; openList.size() < OPEN_LIST_SIZE; i++) {
+            openList.add(new Node(schedules[i % count].getCost(graph, processorCount), schedules[i % count]));
+        }
+        Node[] entries = new Node[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = new Node(schedules[i].getCost(graph, processorCount), schedules[i]);
+        }
+        run("openList.addPoll", name, filter, i -> {
+            openList.add(entries[i % count]);
+            return openList.poll().getCost();
+        });
+
+        // half of the lookups hit, as in a search where duplicates are common
+        HashSet<String> closedSet = new HashSet<>();
+        for (int i = 0; i < count; i += 2) {
+            closedSet.add(signatures[i]);
+        }
+        String[] probes = new String[count];
+        for (int i = 0; i < count; i++) {
+            probes[i] = new String(signatures[i]);
+        }
+        run("closedSet.contains", name, filter, i -> closedSet.contains(probes[i % count]) ? 1 : 0);
+    }
+
+    /**
+     * Runs a best first search for a while and keeps the nodes it expanded,
+     * skipping those with nothing left to schedule.
+     */
+    private static List<Node> sampleSearch(Graph graph, int processorCount) {
+        PriorityQueue<Node> openList = new PriorityQueue<>(Comparator.comparingInt(Node::getCost));
+        HashSet<String> createdNodes = new HashSet<>();
+        for (Task startTask : graph.getStartTasks()) {
+            openList.add(new Node(startTask, graph.getStartTasks(), graph, processorCount));
+        }
+        List<Node> sample = new ArrayList<>();
+        while (!openList.isEmpty() && sample.size() < SAMPLE_SIZE) {
+            Node node = openList.poll();
+            if (node.getSchedule().getSchedulableTasks().isEmpty()) {
+                continue;
+            }
+            // keep a separate copy, since expanding consumes the schedulable tasks
+            Schedule schedule = node.getSchedule();
+            sample.add(new Node(schedule.getCost(graph, processorCount), copy(schedule, graph)));
+            for (Node successor : node.getSuccessors(processorCount, graph)) {
+                if (createdNodes.add(successor.toString())) {
+                    openList.add(successor);
+                }
+            }
+        }
+        return sample;
+    }
+
+    private static Schedule copy(Schedule schedule, Graph graph) {
+        // rebuild the schedule task by task in start time order, which places
+        // every task at the same start time on the same processor
+        ArrayList<TaskVariant> order = new ArrayList<>(schedule.getScheduledTasks().values());
+        order.sort(Comparator.comparingInt(TaskVariant::getStartTime).thenComparingInt(TaskVariant::getProcessor));
+        Schedule rebuilt = new Schedule(order.get(0).getTask(), graph.getStartTasks());
+        for (TaskVariant state : order.subList(1, order.size())) {
+            rebuilt = new Schedule(state.getTask(), state.getProcessor(), rebuilt);
+        }
+        return rebuilt;
+    }
+
+    private void run(String benchmark, String graph, String filter, IntToLongFunction operation) {
+        if (!benchmark.contains(filter)) {
+            return;
+        }
+        long threadId = Thread.currentThread().getId();
+        double[] throughput = new double[measuredIterations];
+        long totalOperations = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int iteration = -warmupIterations; iteration < measuredIterations; iteration++) {
+            long checksum = 0;
+            int operations = 0;
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            long elapsed;
+            // check the clock every 256 operations to keep its cost out of the measurement
+            do {
+                for (int i = 0; i < 256; i++) {
+                    checksum += operation.applyAsLong(operations++);
+                }
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < iterationNanos);
+            long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+            sink += checksum;
+            if (iteration >= 0) {
+                throughput[iteration] = operations * 1e9 / elapsed;
+                totalOperations += operations;
+                totalNanos += elapsed;
+                totalBytes += bytes;
+            }
+        }
+
+        double mean = 0;
+        for (double value : throughput) {
+            mean += value / measuredIterations;
+        }
+        double variance = 0;
+        for (double value : throughput) {
+            variance += (value - mean) * (value - mean) / Math.max(1, measuredIterations - 1);
+        }
+        double error = Math.sqrt(variance);
+        double nanosPerOperation = (double) totalNanos / totalOperations;
+        double bytesPerOperation = (double) totalBytes / totalOperations;
+        double allocationRate = totalBytes / 1e6 / (totalNanos / 1e9);
+        System.out.println(String.format(Locale.ROOT, "%-22s %-24s %14.0f %9.0f %10.1f %10.1f %10.1f",
+                benchmark, graph, mean, error, nanosPerOperation, bytesPerOperation, allocationRate));
+        results.add(new String[] {benchmark, graph, String.format(Locale.ROOT, "%.0f", mean),
+                String.format(Locale.ROOT, "%.1f", bytesPerOperation)});
+    }
+
+    private void save(String file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            writer.println("benchmark\tgraph\tops/s\tB/op");
+            for (String[] result : results) {
+                writer.println(String.join("\t", result));
+            }
+        }
+    }
+
+    private void compare(String file) throws IOException {
+        HashMap<String, String[]> baseline = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                baseline.put(fields[0] + "\t" + fields[1], fields);
+            }
+        }
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-22s %-24s %14s %10s %10s",
+                "benchmark", "graph", "baseline ops/s", "change", "B/op was"));
+        for (String[] result : results) {
+            String[] before = baseline.get(result[0] + "\t" + result[1]);
+            if (before == null) {
+                continue;
+            }
+            double change = Double.parseDouble(result[2]) / Double.parseDouble(before[2]) - 1;
+            System.out.println(String.format(Locale.ROOT, "%-22s %-24s %14s %+9.1f%% %10s",
+                    result[0], result[1], before[2], change * 100, before[3]));
+        }
+    }
+}
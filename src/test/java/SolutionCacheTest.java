@@ -0,0 +1,78 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The SolutionCacheTest class checks that solved schedules survive a round
+ * trip through the cache file and that the least recently used entry is evicted.
+ */
+public class SolutionCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testStoredScheduleIsReloaded() {
+        Graph graph = new Graph("examples/Nodes_7_OutTree.dot", new File(tempDir, "out.dot").getPath());
+        String cacheFile = new File(tempDir, "cache.log").getPath();
+        String key = SolutionCache.hash(graph, 2);
+        Node node = new TreeSearch(graph, 2, false).aStar();
+
+        new SolutionCache(cacheFile).store(key, node.getSchedule().getScheduledTasks().values());
+        List<TaskVariant> cached = new SolutionCache(cacheFile).lookup(key, graph);
+
+        assertNotNull(cached);
+        assertEquals(graph.getTaskCount(), cached.size());
+        for (TaskVariant state : cached) {
+            TaskVariant solved = node.getSchedule().getTaskState(state.getTask());
+            assertEquals(solved.getStartTime(), state.getStartTime());
+            assertEquals(solved.getProcessor(), state.getProcessor());
+        }
+    }
+
+    @Test
+    public void testHashDependsOnProcessorCount() {
+        Graph graph = new Graph("examples/Nodes_7_OutTree.dot", new File(tempDir, "out.dot").getPath());
+        assertEquals(SolutionCache.hash(graph, 2), SolutionCache.hash(graph, 2));
+        assertNotEquals(SolutionCache.hash(graph, 2), SolutionCache.hash(graph, 3));
+    }
+
+    @Test
+    public void testCorruptEntryIsAMiss() throws IOException {
+        Graph graph = new Graph("examples/Nodes_7_OutTree.dot", new File(tempDir, "out.dot").getPath());
+        String cacheFile = new File(tempDir, "cache.log").getPath();
+        String[] corrupt = {"0@0 5 0@1 0@1 0@0 0@0 0@1", "0@0 0@x 0@1 0@1 0@0 0@0 0@1"};
+        for (String placements : corrupt) {
+            Files.write(Paths.get(cacheFile), ("S key " + placements + "\n").getBytes(StandardCharsets.UTF_8));
+            SolutionCache cache = new SolutionCache(cacheFile);
+            assertNull(cache.lookup("key", graph), placements);
+            assertNull(cache.lookup("key", graph), placements);
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        Graph graph = new Graph("examples/Nodes_7_OutTree.dot", new File(tempDir, "out.dot").getPath());
+        String cacheFile = new File(tempDir, "cache.log").getPath();
+        Node node = new TreeSearch(graph, 1, false).aStar();
+        SolutionCache cache = new SolutionCache(cacheFile, 2);
+
+        cache.store("a", node.getSchedule().getScheduledTasks().values());
+        cache.store("b", node.getSchedule().getScheduledTasks().values());
+        cache.lookup("a", graph);
+        cache.store("c", node.getSchedule().getScheduledTasks().values());
+
+        SolutionCache reloaded = new SolutionCache(cacheFile, 2);
+        assertNotNull(reloaded.lookup("a", graph));
+        assertNull(reloaded.lookup("b", graph));
+        assertNotNull(reloaded.lookup("c", graph));
+    }
+}